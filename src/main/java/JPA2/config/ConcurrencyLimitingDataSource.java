@@ -0,0 +1,128 @@
+package JPA2.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ограничивает число одновременно выданных соединений: остальные потоки ждут в очереди FIFO
+ * не дольше acquireTimeoutMillis. На платформенных потоках нагрузку на базу ограничивает сам пул
+ * потоков контейнера; виртуальных потоков может быть сколько угодно, и без этого ограничителя
+ * они все сразу встают в очередь пула соединений. Разрешение возвращается при close() соединения.
+ * maxConcurrency &lt;= 0 — без ограничения, соединения отдаются как есть.
+ */
+public class ConcurrencyLimitingDataSource extends DelegatingDataSource {
+    private int maxConcurrency;
+    private long acquireTimeoutMillis = 30_000;
+    private volatile Semaphore permits;
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency, true) : null;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    public void setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    /**
+     * Потоки, ждущие разрешения прямо сейчас
+     */
+    public int getWaitingThreads() {
+        Semaphore semaphore = permits;
+        return semaphore == null ? 0 : semaphore.getQueueLength();
+    }
+
+    public int getAvailablePermits() {
+        Semaphore semaphore = permits;
+        return semaphore == null ? Integer.MAX_VALUE : semaphore.availablePermits();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Semaphore semaphore = permits;
+        if (semaphore == null)
+            return super.getConnection();
+        acquire(semaphore);
+        try {
+            return limited(super.getConnection(), semaphore);
+        } catch (SQLException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Semaphore semaphore = permits;
+        if (semaphore == null)
+            return super.getConnection(username, password);
+        acquire(semaphore);
+        try {
+            return limited(super.getConnection(username, password), semaphore);
+        } catch (SQLException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    private void acquire(Semaphore semaphore) throws SQLException {
+        try {
+            if (!semaphore.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new SQLTransientConnectionException("No connection permit after " + acquireTimeoutMillis
+                        + " ms: " + maxConcurrency + " connections in use, " + semaphore.getQueueLength() + " waiting");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection permit", e);
+        }
+    }
+
+    private static Connection limited(Connection target, Semaphore semaphore) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConcurrencyLimitingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            try {
+                                target.close();
+                            } finally {
+                                if (released.compareAndSet(false, true))
+                                    semaphore.release();
+                            }
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "unwrap":
+                            if (((Class<?>) args[0]).isInstance(proxy))
+                                return proxy;
+                            break;
+                        case "isWrapperFor":
+                            if (((Class<?>) args[0]).isInstance(proxy))
+                                return true;
+                            break;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,111 @@
+package JPA2.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики пула соединений: активные/свободные соединения, время ожидания соединения и таймауты.
+ * Подключается к HikariDataSource через свойство metricsTrackerFactory.
+ * Счётчики соединений Hikari кеширует и обновляет раз в секунду.
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new Tracker();
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getActiveConnections() {
+        return poolStats == null ? 0 : poolStats.getActiveConnections();
+    }
+
+    public int getIdleConnections() {
+        return poolStats == null ? 0 : poolStats.getIdleConnections();
+    }
+
+    public int getTotalConnections() {
+        return poolStats == null ? 0 : poolStats.getTotalConnections();
+    }
+
+    /**
+     * Потоки, ждущие свободное соединение прямо сейчас
+     */
+    public int getPendingThreads() {
+        return poolStats == null ? 0 : poolStats.getPendingThreads();
+    }
+
+    public long getAcquireCount() {
+        return acquireCount.sum();
+    }
+
+    /**
+     * Суммарное время ожидания соединения из пула
+     */
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(acquireNanos.sum());
+    }
+
+    public double getAverageWaitMillis() {
+        long count = acquireCount.sum();
+        return count == 0 ? 0 : acquireNanos.sum() / (double) count / 1_000_000;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxAcquireNanos.get() / 1_000_000.0;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    public long getTotalUsageMillis() {
+        return usageMillis.sum();
+    }
+
+    private class Tracker implements IMetricsTracker {
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            createdCount.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireCount.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeoutCount.increment();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package JPA2.config;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Перевод существующей базы на {@link PooledSequenceGenerator}.
+ * Для каждой таблицы создаёт последовательность (если её ещё нет) и перезапускает её
+ * со значения MAX(id) + 1: оптимизатор pooled-lo считает полученное значение началом блока,
+ * поэтому новые идентификаторы не пересекаются с уже существующими строками.
+ * <p>
+ * Запускается один раз при остановленном приложении, до первого старта с новыми генераторами.
+ */
+public class IdSequenceMigration {
+    private final DataSource dataSource;
+    private final int allocationSize;
+    private final Map<String, String> sequences = new LinkedHashMap<>();
+
+    public IdSequenceMigration(DataSource dataSource, int allocationSize) {
+        this.dataSource = dataSource;
+        this.allocationSize = allocationSize;
+        sequences.put("EMPLOYEE", "EMPLOYEE_SEQ");
+        sequences.put("REQUESTS", "REQUEST_SEQ");
+    }
+
+    /**
+     * @return для каждой последовательности — значение, с которого она перезапущена
+     */
+    public Map<String, Long> migrate() throws SQLException {
+        Map<String, Long> restartedWith = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> entry : sequences.entrySet()) {
+                String table = entry.getKey();
+                String sequence = entry.getValue();
+                long next;
+                try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+                    rs.next();
+                    next = rs.getLong(1);
+                }
+                statement.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence
+                        + " START WITH 1 INCREMENT BY " + allocationSize);
+                statement.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + allocationSize);
+                statement.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+                restartedWith.put(sequence, next);
+            }
+            if (!connection.getAutoCommit())
+                connection.commit();
+        }
+        return restartedWith;
+    }
+}
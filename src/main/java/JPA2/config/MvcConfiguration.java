@@ -1,10 +1,15 @@
 
 package JPA2.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -13,8 +18,13 @@ import org.springframework.web.servlet.view.InternalResourceViewResolver;
 @Configuration
 @ComponentScan(basePackages = "JPA2")
 @EnableWebMvc
+@EnableScheduling
 public class MvcConfiguration implements WebMvcConfigurer {
 
+    @Autowired(required = false)
+    @Qualifier("mvcTaskExecutor")
+    AsyncTaskExecutor mvcTaskExecutor;
+
     @Bean
     public ViewResolver getViewResolver() {
         InternalResourceViewResolver resolver = new InternalResourceViewResolver();
@@ -27,4 +37,14 @@ public class MvcConfiguration implements WebMvcConfigurer {
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
     }
+
+    /**
+     * StreamingResponseBody и Callable выполняются на том же исполнителе, что и запросы
+     * в режиме mvc.virtualThreads, а не на SimpleAsyncTaskExecutor по умолчанию
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (mvcTaskExecutor != null)
+            configurer.setTaskExecutor(mvcTaskExecutor);
+    }
 }
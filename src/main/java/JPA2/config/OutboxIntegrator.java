@@ -0,0 +1,210 @@
+package JPA2.config;
+
+import JPA2.models.ChangeType;
+import JPA2.models.OutboxEvent;
+import JPA2.models.PublishChanges;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Пишет события outbox об изменениях сущностей с {@link PublishChanges}. Подключается через
+ * META-INF/services ко всем SessionFactory. JPA-колбэки (@PostPersist и т.п.) не получают сессию,
+ * поэтому используются слушатели событий Hibernate.
+ * <p>
+ * Изменения копятся до конца транзакции, по одному событию на сущность: создание с последующими
+ * правками остаётся CREATED, правки сливаются в один UPDATED, удаление перекрывает всё.
+ * Перед фиксацией, уже после последнего flush, события вставляются одним JDBC batch
+ * на том же соединении, поэтому попадают в базу ровно тогда, когда фиксируются сами изменения.
+ */
+public class OutboxIntegrator implements Integrator {
+    /**
+     * false — слушатели не регистрируются и outbox не заполняется
+     */
+    public static final String ENABLED = "jpa2.outbox.enabled";
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        if (!sessionFactory.getServiceRegistry().getService(ConfigurationService.class)
+                .getSetting(ENABLED, StandardConverters.BOOLEAN, true))
+            return;
+        String insert = OutboxEvent.insert(sessionFactory.getJdbcServices().getDialect().getSequenceSupport()
+                .getSelectSequenceNextValString(OutboxEvent.SEQUENCE));
+        Listener listener = new Listener(insert);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    private record Key(String type, int id) {
+    }
+
+    private static final class Change {
+        ChangeType operation;
+        final Set<String> properties = new TreeSet<>();
+
+        Change(ChangeType operation) {
+            this.operation = operation;
+        }
+
+        void merge(ChangeType next, Collection<String> changed) {
+            if (next == ChangeType.DELETED) {
+                operation = ChangeType.DELETED;
+                properties.clear();
+            } else if (operation == ChangeType.UPDATED) {
+                properties.addAll(changed);
+            }
+        }
+    }
+
+    /**
+     * Изменения одной транзакции одной сессии
+     */
+    private static final class PendingChanges {
+        final Map<Key, Change> changes = new LinkedHashMap<>();
+
+        void add(String type, int id, ChangeType operation, Collection<String> properties) {
+            Change change = changes.get(new Key(type, id));
+            if (change == null) {
+                change = new Change(operation);
+                change.properties.addAll(operation == ChangeType.UPDATED ? properties : List.of());
+                changes.put(new Key(type, id), change);
+            } else {
+                change.merge(operation, properties);
+            }
+        }
+
+        void write(SessionImplementor session, String sql) {
+            Timestamp now = Timestamp.from(Instant.now());
+            session.doWork(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(sql)) {
+                    for (Map.Entry<Key, Change> entry : changes.entrySet()) {
+                        Change change = entry.getValue();
+                        insert.setString(1, entry.getKey().type());
+                        insert.setInt(2, entry.getKey().id());
+                        insert.setString(3, change.operation.name());
+                        insert.setString(4, change.properties.isEmpty() ? null : String.join(",", change.properties));
+                        insert.setTimestamp(5, now);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            });
+        }
+    }
+
+    private static final class Listener implements PostInsertEventListener, PostUpdateEventListener,
+            PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+            PostCollectionRemoveEventListener {
+        private final Map<SharedSessionContractImplementor, PendingChanges> pending = new ConcurrentHashMap<>();
+        private final String insert;
+
+        Listener(String insert) {
+            this.insert = insert;
+        }
+
+        private static boolean published(Object entity) {
+            return entity != null && entity.getClass().isAnnotationPresent(PublishChanges.class);
+        }
+
+        private void record(EventSource session, Object entity, Object id, ChangeType operation, Collection<String> properties) {
+            PendingChanges changes = pending.get(session);
+            if (changes == null) {
+                PendingChanges created = new PendingChanges();
+                changes = created;
+                pending.put(session, created);
+                session.getActionQueue().registerProcess((SessionImplementor completing) -> {
+                    if (pending.remove(completing) != null && !created.changes.isEmpty())
+                        created.write(completing, insert);
+                });
+                session.getActionQueue().registerProcess((success, completed) -> pending.remove(completed));
+            }
+            changes.add(entity.getClass().getSimpleName(), (Integer) id, operation, properties);
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (published(event.getEntity()))
+                record(event.getSession(), event.getEntity(), event.getId(), ChangeType.CREATED, List.of());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (!published(event.getEntity()))
+                return;
+            String[] names = event.getPersister().getPropertyNames();
+            List<String> changed = new ArrayList<>();
+            if (event.getDirtyProperties() != null) {
+                for (int index : event.getDirtyProperties())
+                    changed.add(names[index]);
+            }
+            record(event.getSession(), event.getEntity(), event.getId(), ChangeType.UPDATED, changed);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (published(event.getEntity()))
+                record(event.getSession(), event.getEntity(), event.getId(), ChangeType.DELETED, List.of());
+        }
+
+        private void collectionChanged(AbstractCollectionEvent event) {
+            Object owner = event.getAffectedOwnerOrNull();
+            if (!published(owner))
+                return;
+            // роль коллекции в событии не передаётся (а у только что созданной или удалённой коллекции
+            // её нет и в самой коллекции), поэтому свойство ищется среди значений владельца
+            EntityPersister persister = event.getSession().getEntityPersister(event.getAffectedOwnerEntityName(), owner);
+            String[] names = persister.getPropertyNames();
+            for (int i = 0; i < names.length; i++) {
+                if (persister.getValue(owner, i) == event.getCollection()) {
+                    record(event.getSession(), owner, event.getAffectedOwnerIdOrNull(), ChangeType.UPDATED, List.of(names[i]));
+                    return;
+                }
+            }
+            record(event.getSession(), owner, event.getAffectedOwnerIdOrNull(), ChangeType.UPDATED, List.of());
+        }
+
+        @Override
+        public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+            collectionChanged(event);
+        }
+
+        @Override
+        public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+            collectionChanged(event);
+        }
+
+        @Override
+        public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+            collectionChanged(event);
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package JPA2.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Шарды сотрудников: отдельные базы со своими EntityManagerFactory (sharding-context.xml).
+ * Сотрудник вместе с телефонами и связями с проектами лежит в шарде своего отдела,
+ * номер шарда — id отдела по модулю числа шардов. Запросы по всем шардам выполняются
+ * параллельно, каждый в своей транзакции readOnly, результаты склеиваются.
+ */
+public class ShardedPersistence implements InitializingBean, DisposableBean {
+    private List<EntityManagerFactory> shards;
+    private final List<EntityManager> entityManagers = new ArrayList<>();
+    private final List<TransactionTemplate> transactions = new ArrayList<>();
+    private final List<TransactionTemplate> readOnlyTransactions = new ArrayList<>();
+    private ExecutorService executor;
+
+    public void setShards(List<EntityManagerFactory> shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (EntityManagerFactory emf : shards) {
+            JpaTransactionManager transactionManager = new JpaTransactionManager(emf);
+            entityManagers.add(SharedEntityManagerCreator.createSharedEntityManager(emf));
+            transactions.add(new TransactionTemplate(transactionManager));
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnlyTransactions.add(readOnly);
+        }
+        executor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public int shardOf(int departmentId) {
+        return Math.floorMod(departmentId, shards.size());
+    }
+
+    /**
+     * EntityManager шарда отдела, привязанный к текущей транзакции этого шарда
+     */
+    public EntityManager entityManager(int departmentId) {
+        return entityManagers.get(shardOf(departmentId));
+    }
+
+    /**
+     * Выполняет work в транзакции шарда отдела
+     */
+    public <T> T inShard(int departmentId, Function<EntityManager, T> work) {
+        int shard = shardOf(departmentId);
+        return transactions.get(shard).execute(status -> work.apply(entityManagers.get(shard)));
+    }
+
+    public <T> T readShard(int departmentId, Function<EntityManager, T> work) {
+        int shard = shardOf(departmentId);
+        return readOnlyTransactions.get(shard).execute(status -> work.apply(entityManagers.get(shard)));
+    }
+
+    /**
+     * Выполняет work во всех шардах по очереди, в каждом — своя транзакция
+     */
+    public void forEachShard(Consumer<EntityManager> work) {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            EntityManager em = entityManagers.get(shard);
+            transactions.get(shard).executeWithoutResult(status -> work.accept(em));
+        }
+    }
+
+    /**
+     * Параллельно выполняет query во всех шардах
+     *
+     * @return результаты по шардам, в порядке номеров шардов
+     */
+    public <T> List<T> scatter(Function<EntityManager, T> query) {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            EntityManager em = entityManagers.get(shard);
+            TransactionTemplate tx = readOnlyTransactions.get(shard);
+            futures.add(executor.submit(() -> tx.execute(status -> query.apply(em))));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (Future<T> future : futures)
+                results.add(future.get());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Параллельный запрос списков во всех шардах, слитых в один список в порядке order.
+     * Каждый шард должен вернуть список, уже упорядоченный по order.
+     */
+    public <T> List<T> scatterGather(Function<EntityManager, List<T>> query, Comparator<? super T> order) {
+        List<List<T>> parts = scatter(query);
+        List<T> merged = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+        int[] positions = new int[parts.size()];
+        while (true) {
+            int next = -1;
+            for (int shard = 0; shard < parts.size(); shard++) {
+                if (positions[shard] < parts.get(shard).size() && (next < 0
+                        || order.compare(parts.get(shard).get(positions[shard]), parts.get(next).get(positions[next])) < 0))
+                    next = shard;
+            }
+            if (next < 0)
+                return merged;
+            merged.add(parts.get(next).get(positions[next]++));
+        }
+    }
+}
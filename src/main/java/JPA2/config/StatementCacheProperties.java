@@ -0,0 +1,40 @@
+package JPA2.config;
+
+import org.apache.log4j.Logger;
+
+import java.util.Properties;
+
+/**
+ * Свойства соединения, которые включают кэш подготовленных команд драйвера JDBC. У HikariCP своего
+ * кэша команд нет, а у каждого драйвера своё имя настройки, поэтому jdbc.statementCacheSize
+ * переводится в настройку драйвера из jdbc.driverClassName:
+ * <ul>
+ * <li>H2 — QUERY_CACHE_SIZE, разобранные команды в каждом соединении;</li>
+ * <li>PostgreSQL — preparedStatementCacheQueries;</li>
+ * <li>MySQL — cachePrepStmts и prepStmtCacheSize.</li>
+ * </ul>
+ * HSQLDB и прочие драйверы настройки размера кэша не имеют: свойства пустые, размер не применяется.
+ * Используется в test-context.xml и sharding-context.xml как фабрика dataSourceProperties.
+ */
+public final class StatementCacheProperties {
+    static Logger LOGGER = Logger.getLogger(StatementCacheProperties.class);
+
+    private StatementCacheProperties() {
+    }
+
+    public static Properties forDriver(String driverClassName, int statementCacheSize) {
+        Properties properties = new Properties();
+        String size = String.valueOf(statementCacheSize);
+        switch (driverClassName) {
+            case "org.h2.Driver" -> properties.setProperty("QUERY_CACHE_SIZE", size);
+            case "org.postgresql.Driver" -> properties.setProperty("preparedStatementCacheQueries", size);
+            case "com.mysql.cj.jdbc.Driver", "com.mysql.jdbc.Driver" -> {
+                properties.setProperty("cachePrepStmts", String.valueOf(statementCacheSize > 0));
+                properties.setProperty("prepStmtCacheSize", size);
+            }
+            default -> LOGGER.info("No statement cache setting known for " + driverClassName
+                    + ", jdbc.statementCacheSize is not applied");
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,49 @@
+package JPA2.config;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Исполнитель, на котором {@link VirtualThreadDispatchFilter} обрабатывает HTTP-запросы
+ * и Spring MVC выполняет асинхронные обработчики (StreamingResponseBody, Callable).
+ * При mvc.virtualThreads=true каждая задача получает свой виртуальный поток; на JDK старше 21
+ * их нет, и остаётся пул платформенных потоков. Иначе — пул из mvc.threads потоков,
+ * как у пула рабочих потоков контейнера.
+ */
+@Configuration
+public class TaskExecutorConfiguration {
+    static Logger LOGGER = Logger.getLogger(TaskExecutorConfiguration.class);
+
+    @Bean
+    public AsyncTaskExecutor mvcTaskExecutor(@Value("${mvc.virtualThreads:false}") boolean virtualThreads,
+                                             @Value("${mvc.threads:200}") int threads) {
+        return createExecutor(virtualThreads, threads);
+    }
+
+    /**
+     * Пул платформенных потоков возвращается ненастроенным: его запускает контейнер Spring
+     * (или вызывающий — методом initialize())
+     */
+    public static AsyncTaskExecutor createExecutor(boolean virtualThreads, int threads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-virtual-");
+            try {
+                executor.setVirtualThreads(true);
+                return executor;
+            } catch (UnsupportedOperationException e) {
+                LOGGER.warn("Virtual threads are not available on Java " + Runtime.version().feature()
+                        + ", using " + threads + " platform threads");
+            }
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mvc-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        return executor;
+    }
+}
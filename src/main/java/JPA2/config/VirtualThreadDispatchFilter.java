@@ -0,0 +1,315 @@
+package JPA2.config;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * При mvc.virtualThreads=true переводит запрос в асинхронный режим и выполняет остаток цепочки фильтров
+ * вместе с DispatcherServlet на mvcTaskExecutor (виртуальном потоке), освобождая поток контейнера.
+ * Если обработчик сам уходит в асинхронный режим (StreamingResponseBody, DeferredResult), он получает
+ * уже начатый AsyncContext, а завершает запрос асинхронный dispatch Spring MVC — его этот фильтр пропускает.
+ * Контейнер ждёт ответа не дольше mvc.asyncTimeoutMillis (0 — без ограничения): по истечении клиент получает 503,
+ * а всё, что обработчик пишет в ответ после этого, отбрасывается. Свой таймаут Spring MVC
+ * (AsyncSupportConfigurer), если задан, заменяет этот, когда обработчик сам уходит в асинхронный режим.
+ * Подключается в web.xml через DelegatingFilterProxy.
+ */
+@Component
+public class VirtualThreadDispatchFilter extends OncePerRequestFilter {
+    static Logger LOGGER = Logger.getLogger(VirtualThreadDispatchFilter.class);
+
+    @Autowired
+    @Qualifier("mvcTaskExecutor")
+    AsyncTaskExecutor executor;
+
+    @Value("${mvc.virtualThreads:false}")
+    private boolean enabled;
+
+    @Value("${mvc.asyncTimeoutMillis:30000}")
+    private long timeoutMillis;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void setExecutor(AsyncTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!enabled || !request.isAsyncSupported()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(timeoutMillis);
+        OffloadedRequest offloaded = new OffloadedRequest(request, async);
+        OffloadedResponse offloadedResponse = new OffloadedResponse(response);
+        async.addListener(new TimeoutListener(offloaded, offloadedResponse));
+        executor.execute(() -> {
+            try {
+                chain.doFilter(offloaded, offloadedResponse);
+            } catch (Exception e) {
+                LOGGER.error("Request " + request.getRequestURI() + " failed", e);
+                if (!offloadedResponse.isCommitted()) {
+                    try {
+                        offloadedResponse.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    } catch (IOException ignored) {
+                        // клиент уже отключился
+                    }
+                }
+            } finally {
+                if (!offloaded.handlerStartedAsync && !offloadedResponse.timedOut)
+                    complete(async, request);
+            }
+        });
+    }
+
+    private static void complete(AsyncContext async, HttpServletRequest request) {
+        try {
+            async.complete();
+        } catch (IllegalStateException e) {
+            // контейнер успел завершить запрос по таймауту
+            LOGGER.debug("Request " + request.getRequestURI() + " already completed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * По таймауту отвечает 503 и завершает запрос, если обработчик не ушёл в асинхронный режим сам:
+     * тогда таймаут обрабатывает Spring MVC
+     */
+    private static class TimeoutListener implements AsyncListener {
+        private final OffloadedRequest offloaded;
+        private final OffloadedResponse response;
+
+        TimeoutListener(OffloadedRequest offloaded, OffloadedResponse response) {
+            this.offloaded = offloaded;
+            this.response = response;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (offloaded.handlerStartedAsync)
+                return;
+            LOGGER.warn("Request " + offloaded.getRequestURI() + " timed out");
+            response.timeOut();
+            event.getAsyncContext().complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    /**
+     * Запрос, для которого асинхронный режим уже начат фильтром: обработчик видит его
+     * как обычный синхронный и может сам начать асинхронную обработку
+     */
+    private static class OffloadedRequest extends HttpServletRequestWrapper {
+        private final AsyncContext async;
+        private volatile boolean handlerStartedAsync;
+
+        OffloadedRequest(HttpServletRequest request, AsyncContext async) {
+            super(request);
+            this.async = async;
+        }
+
+        @Override
+        public AsyncContext startAsync() {
+            handlerStartedAsync = true;
+            return async;
+        }
+
+        @Override
+        public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+            handlerStartedAsync = true;
+            return async;
+        }
+
+        @Override
+        public boolean isAsyncStarted() {
+            return handlerStartedAsync;
+        }
+
+        @Override
+        public AsyncContext getAsyncContext() {
+            return async;
+        }
+    }
+
+    /**
+     * Ответ, который обработчик получает вместо ответа контейнера. После таймаута запись в тело,
+     * сброс буфера и ошибки отбрасываются: клиенту уже отправлен 503, и запрос завершён.
+     * Проверка и запись идут под одной блокировкой с {@link #timeOut()}, поэтому ни один байт
+     * обработчика не попадает в ответ после 503
+     */
+    private static class OffloadedResponse extends HttpServletResponseWrapper {
+        // ReentrantLock, а не synchronized: запись под монитором закрепила бы виртуальный поток за носителем
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile boolean timedOut;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        OffloadedResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void timeOut() throws IOException {
+            lock.lock();
+            try {
+                timedOut = true;
+                HttpServletResponse response = (HttpServletResponse) getResponse();
+                if (!response.isCommitted())
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private interface Write {
+            void run() throws IOException;
+        }
+
+        private void write(Write write) throws IOException {
+            lock.lock();
+            try {
+                if (!timedOut)
+                    write.run();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return timedOut || super.isCommitted();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            write(() -> super.sendError(sc));
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            write(() -> super.sendError(sc, msg));
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            write(() -> super.sendRedirect(location));
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            write(super::flushBuffer);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream target = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        OffloadedResponse.this.write(() -> target.write(b));
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        OffloadedResponse.this.write(() -> target.write(b, off, len));
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        OffloadedResponse.this.write(target::flush);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        OffloadedResponse.this.write(target::close);
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        target.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                PrintWriter target = super.getWriter();
+                writer = new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] cbuf, int off, int len) throws IOException {
+                        OffloadedResponse.this.write(() -> target.write(cbuf, off, len));
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        OffloadedResponse.this.write(target::flush);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        OffloadedResponse.this.write(target::close);
+                    }
+                });
+            }
+            return writer;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package JPA2.controller;
+
+import JPA2.services.EmployeeExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Выгрузка таблицы сотрудников в CSV или JSON без загрузки её целиком в память
+ */
+@Controller
+public class EmployeeExportController {
+
+    @Autowired
+    EmployeeExportService exportService;
+
+    @RequestMapping(value = "/employees/export.csv", method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> exportCsv() {
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=employees.csv")
+                .body(exportService::exportCsv);
+    }
+
+    @RequestMapping(value = "/employees/export.json", method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> exportJson() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(exportService::exportJson);
+    }
+}
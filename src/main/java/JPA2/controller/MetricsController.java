@@ -0,0 +1,26 @@
+package JPA2.controller;
+
+import JPA2.services.PersistenceMetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * Метрики Hibernate и пула соединений для Prometheus
+ */
+@Controller
+public class MetricsController {
+
+    @Autowired
+    PersistenceMetricsService metricsService;
+
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET)
+    public ResponseEntity<String> metrics() {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, PersistenceMetricsService.CONTENT_TYPE)
+                .body(metricsService.scrape());
+    }
+}
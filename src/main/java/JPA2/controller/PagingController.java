@@ -0,0 +1,75 @@
+package JPA2.controller;
+
+import JPA2.models.Employee;
+import JPA2.models.EmployeeOrder;
+import JPA2.models.Request;
+import JPA2.services.KeysetPage;
+import JPA2.services.KeysetPaginationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Постраничный список сотрудников и запросов в JSON. Параметр after — токен next из предыдущей страницы.
+ */
+@Controller
+public class PagingController {
+
+    @Autowired
+    KeysetPaginationService paginationService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public record EmployeeRow(int id, String name, long salary, Date startDate, Integer departmentId) {
+    }
+
+    public record RequestRow(int id, String name, Calendar convertX, Calendar execute, Calendar generateResponse) {
+    }
+
+    @RequestMapping(value = "/employees", method = RequestMethod.GET)
+    public ResponseEntity<String> employees(@RequestParam(value = "order", defaultValue = "ID") EmployeeOrder order,
+                                            @RequestParam(value = "after", required = false) String after,
+                                            @RequestParam(value = "size", defaultValue = "100") int size)
+            throws JsonProcessingException {
+        KeysetPage<Employee> page = paginationService.employees(order, after, size);
+        return json(new KeysetPage<>(page.items().stream()
+                .map(e -> new EmployeeRow(e.getId(), e.getName(), e.getSalary(), e.getStartDate(),
+                        e.getDepartment() == null ? null : e.getDepartment().getId()))
+                .toList(), page.next()));
+    }
+
+    @RequestMapping(value = "/requests", method = RequestMethod.GET)
+    public ResponseEntity<String> requests(@RequestParam(value = "after", required = false) String after,
+                                           @RequestParam(value = "size", defaultValue = "100") int size)
+            throws JsonProcessingException {
+        KeysetPage<Request> page = paginationService.requests(after, size);
+        return json(new KeysetPage<>(page.items().stream()
+                .map(r -> new RequestRow(r.getId(), r.getName(), r.getConvertX(), r.getExecute(), r.getGenerateResponse()))
+                .toList(), page.next()));
+    }
+
+    /**
+     * JSON пишется здесь, а не конвертером MVC, чтобы ответ не зависел от набора зарегистрированных конвертеров
+     */
+    private ResponseEntity<String> json(Object body) throws JsonProcessingException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(objectMapper.writeValueAsString(body));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .contentType(new MediaType("text", "plain", StandardCharsets.UTF_8))
+                .body(e.getMessage());
+    }
+}
@@ -0,0 +1,8 @@
+package JPA2.models;
+
+/**
+ * Вид изменения сущности в событии outbox
+ */
+public enum ChangeType {
+    CREATED, UPDATED, DELETED
+}
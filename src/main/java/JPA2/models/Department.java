@@ -1,16 +1,36 @@
 package JPA2.models;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.Id;
-import jakarta.persistence.OneToMany;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.jpa.HibernateHints;
+
 import java.util.Collection;
 
 @Entity
+@PublishChanges
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "department")
+@NamedQuery(name = Department.FIND_BY_NAME, query = "select d from Department d where d.name = :name",
+        hints = @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 public class Department {
+    public static final String FIND_BY_NAME = "Department.findByName";
+
     @Id
     private int id;
+    @Version
+    @ColumnDefault("0")
+    private int version;
     private String name;
+    /**
+     * Приём сотрудника в отдел не меняет версию отдела, иначе одновременные переводы в один отдел
+     * конфликтовали бы между собой. Коллекция не кешируется: в кеше лежали бы только id,
+     * а сами сотрудники (их кеш не хранит) загружались бы потом по одному запросу на каждого
+     */
     @OneToMany(mappedBy = "department")
+    @OptimisticLock(excluded = true)
     private Collection<Employee> employees;
 
     public int getId() {
@@ -21,6 +41,10 @@ public class Department {
         this.id = id;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
@@ -1,47 +1,122 @@
 
 package JPA2.models;
 
+import JPA2.config.PooledSequenceGenerator;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.time.LocalDate;
 import java.util.*;
 
 @Entity
+@PublishChanges
+@Table(indexes = {
+        @Index(name = "IDX_EMPLOYEE_NAME_ID", columnList = "name, id"),
+        @Index(name = "IDX_EMPLOYEE_S_DATE_ID", columnList = "S_DATE, id"),
+        @Index(name = "IDX_EMPLOYEE_DEPARTMENT_ID", columnList = "department_id, id")})
+@NamedQuery(name = Employee.FIND_ALL, query = "select e from Employee e order by e.id")
+@NamedQuery(name = Employee.FIND_BY_NAME, query = "select e from Employee e where e.name = :name order by e.id")
+@NamedQuery(name = Employee.FIND_BY_DEPARTMENT,
+        query = "select e from Employee e where e.department.id = :department order by e.id")
+@NamedQuery(name = Employee.DIRECTORY, query = "select new JPA2.projections.DirectoryEntry(e.id, e.name, d.name) "
+        + "from Employee e left join e.department d order by e.name, e.id")
+@NamedQuery(name = Employee.DIRECTORY_BY_DEPARTMENT, query = "select new JPA2.projections.DirectoryEntry(e.id, e.name, d.name) "
+        + "from Employee e left join e.department d where d.id = :department order by e.name, e.id")
+@NamedQuery(name = Employee.PAYROLL, query = "select new JPA2.projections.PayrollLine(e.id, e.name, e.salary, e.type, d.name) "
+        + "from Employee e left join e.department d order by e.id")
+@NamedQuery(name = Employee.PAYROLL_BY_DEPARTMENT, query = "select new JPA2.projections.PayrollLine(e.id, e.name, e.salary, e.type, d.name) "
+        + "from Employee e left join e.department d where d.id = :department order by e.id")
+@NamedQuery(name = Employee.TOTAL_SALARY, query = "select coalesce(sum(e.salary), 0) from Employee e")
+@NamedEntityGraph(name = Employee.GRAPH_SUMMARY)
+@NamedEntityGraph(name = Employee.GRAPH_WITH_DEPARTMENT, attributeNodes = @NamedAttributeNode("department"))
+@NamedEntityGraph(name = Employee.GRAPH_FULL, attributeNodes = {
+        @NamedAttributeNode("department"),
+        @NamedAttributeNode("parkingSpace"),
+        @NamedAttributeNode("phoneNumbers")})
 public class Employee {
+    /**
+     * Именованные запросы разбираются и проверяются при старте entityManagerFactory:
+     * ошибка в запросе не даёт приложению запуститься, а при вызове разбор уже не нужен
+     */
+    public static final String FIND_ALL = "Employee.findAll";
+    public static final String FIND_BY_NAME = "Employee.findByName";
+    public static final String FIND_BY_DEPARTMENT = "Employee.findByDepartment";
+    public static final String DIRECTORY = "Employee.directory";
+    public static final String DIRECTORY_BY_DEPARTMENT = "Employee.directoryByDepartment";
+    public static final String PAYROLL = "Employee.payroll";
+    public static final String PAYROLL_BY_DEPARTMENT = "Employee.payrollByDepartment";
+    public static final String TOTAL_SALARY = "Employee.totalSalary";
+    /**
+     * Только собственные поля сотрудника
+     */
+    public static final String GRAPH_SUMMARY = "Employee.summary";
+    public static final String GRAPH_WITH_DEPARTMENT = "Employee.withDepartment";
+    /**
+     * Отдел, парковка и телефоны одним запросом; проекты — вторым запросом (subselect)
+     * сразу для всех загруженных сотрудников, без декартова произведения с телефонами
+     */
+    public static final String GRAPH_FULL = "Employee.full";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "employee_seq")
+    @GenericGenerator(name = "employee_seq", type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "EMPLOYEE_SEQ"))
     private int id;
 
+    /**
+     * Номер версии для оптимистической блокировки: UPDATE и DELETE проверяют, что строку
+     * не изменили после чтения. Значение по умолчанию в схеме — для строк, вставленных SQL в обход Hibernate
+     */
+    @Version
+    @ColumnDefault("0")
+    private int version;
+
     private String name;
     private long salary;
 
-    @Temporal(TemporalType.DATE)
-    private Calendar dob;
+    private LocalDate dob;
 
-    @Temporal(TemporalType.DATE)
     @Column(name = "S_DATE")
-    private Date startDate;
+    private LocalDate startDate;
 
     @Enumerated(EnumType.STRING)
-    public EmployeeType type;
+    private EmployeeType type;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "department_id")
     private Department department;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parking_space_id")
     private ParkingSpace parkingSpace;
 
+    /**
+     * Множество, а не bag: добавление или удаление одного проекта меняет одну строку таблицы связи,
+     * а не удаляет и вставляет заново все строки сотрудника. Версию сотрудника участие в проектах
+     * не меняет: строки связи независимы, и одновременные изменения разных проектов не конфликтуют
+     */
     @ManyToMany
-    private Collection<Project> projects;
+    @OptimisticLock(excluded = true)
+    @JoinTable(name = "Employee_Project",
+            indexes = @Index(name = "IDX_EMPLOYEE_PROJECT_PROJECT", columnList = "projects_id"))
+    @Fetch(FetchMode.SUBSELECT)
+    private Set<Project> projects;
 
     @Embedded
     private Address address;
 
     @ElementCollection
-    @CollectionTable(name = "EMP_PHONE")
+    @CollectionTable(name = "EMP_PHONE", joinColumns = @JoinColumn(name = "Employee_id"),
+            indexes = @Index(name = "IDX_EMP_PHONE_EMPLOYEE", columnList = "Employee_id, PHONE_TYPE, PHONE_NUM"))
     @MapKeyColumn(name = "PHONE_TYPE")
     @Column(name = "PHONE_NUM")
-    public Map<String, String> phoneNumbers;
+    private Map<String, String> phoneNumbers;
 
     public Employee() {
     }
@@ -58,6 +133,10 @@ public class Employee {
         this.id = id;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
@@ -74,22 +153,44 @@ public class Employee {
         this.salary = salary;
     }
 
-    public Calendar getDob() {
+    public LocalDate getDobLocalDate() {
         return dob;
     }
 
-    public void setDob(Calendar dob) {
+    public void setDobLocalDate(LocalDate dob) {
         this.dob = dob;
     }
 
-    public Date getStartDate() {
+    public LocalDate getStartLocalDate() {
         return startDate;
     }
 
-    public void setStartDate(Date startDate) {
+    public void setStartLocalDate(LocalDate startDate) {
         this.startDate = startDate;
     }
 
+    /**
+     * Прежний доступ через Calendar: возвращает копию, {@link #getDobLocalDate()} не создаёт объектов
+     */
+    public Calendar getDob() {
+        return LegacyTime.toCalendar(dob);
+    }
+
+    public void setDob(Calendar dob) {
+        this.dob = LegacyTime.toLocalDate(dob);
+    }
+
+    /**
+     * Прежний доступ через Date: возвращает копию, {@link #getStartLocalDate()} не создаёт объектов
+     */
+    public Date getStartDate() {
+        return LegacyTime.toDate(startDate);
+    }
+
+    public void setStartDate(Date startDate) {
+        this.startDate = LegacyTime.toLocalDate(startDate);
+    }
+
     public Department getDepartment() {
         return department;
     }
@@ -106,11 +207,11 @@ public class Employee {
         this.parkingSpace = parkingSpace;
     }
 
-    public Collection<Project> getProjects() {
+    public Set<Project> getProjects() {
         return projects;
     }
 
-    public void setProjects(Collection<Project> projects) {
+    public void setProjects(Set<Project> projects) {
         this.projects = projects;
     }
 
@@ -0,0 +1,21 @@
+package JPA2.models;
+
+/**
+ * План загрузки сотрудника: какие связи подтягиваются тем же запросом.
+ * Связи, не вошедшие в план, не загружаются, пока к ним не обратятся.
+ */
+public enum EmployeeFetchPlan {
+    SUMMARY(Employee.GRAPH_SUMMARY),
+    WITH_DEPARTMENT(Employee.GRAPH_WITH_DEPARTMENT),
+    FULL(Employee.GRAPH_FULL);
+
+    private final String graphName;
+
+    EmployeeFetchPlan(String graphName) {
+        this.graphName = graphName;
+    }
+
+    public String getGraphName() {
+        return graphName;
+    }
+}
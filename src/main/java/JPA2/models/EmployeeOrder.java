@@ -0,0 +1,24 @@
+package JPA2.models;
+
+/**
+ * Порядок постраничного обхода сотрудников. Ключ страницы — значение колонки и id последней строки,
+ * id делает порядок однозначным при одинаковых значениях колонки.
+ */
+public enum EmployeeOrder {
+    ID(null),
+    START_DATE("e.startDate"),
+    DEPARTMENT("e.department.id");
+
+    private final String column;
+
+    EmployeeOrder(String column) {
+        this.column = column;
+    }
+
+    /**
+     * Выражение JPQL для первой части ключа; null для порядка только по id
+     */
+    public String getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,47 @@
+package JPA2.models;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+/**
+ * Преобразования между полями java.time и прежними Calendar/Date для старых методов доступа.
+ * Каждый вызов создаёт новый объект: изменение полученного Calendar не меняет сущность.
+ */
+final class LegacyTime {
+
+    private LegacyTime() {
+    }
+
+    static Calendar toCalendar(LocalDate date) {
+        return date == null ? null : GregorianCalendar.from(date.atStartOfDay(ZoneId.systemDefault()));
+    }
+
+    static LocalDate toLocalDate(Calendar calendar) {
+        return calendar == null ? null
+                : LocalDate.ofInstant(calendar.toInstant(), calendar.getTimeZone().toZoneId());
+    }
+
+    static Date toDate(LocalDate date) {
+        return date == null ? null : Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    static LocalDate toLocalDate(Date date) {
+        return date == null ? null : LocalDate.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault());
+    }
+
+    static Calendar toCalendar(Instant instant) {
+        if (instant == null)
+            return null;
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(instant.toEpochMilli());
+        return calendar;
+    }
+
+    static Instant toInstant(Calendar calendar) {
+        return calendar == null ? null : calendar.toInstant();
+    }
+}
@@ -0,0 +1,114 @@
+package JPA2.models;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * Событие об изменении сущности с {@link PublishChanges}, записанное в той же транзакции, что и само изменение.
+ * Строки вставляет {@link JPA2.config.OutboxIntegrator} напрямую через JDBC (массовые изменения —
+ * {@link JPA2.services.EmployeeBulkService} через INSERT ... SELECT), читает и удаляет {@link JPA2.services.OutboxRelay}:
+ * строка остаётся в таблице, пока событие не подтвердят все подписчики.
+ */
+@Entity
+@Table(name = OutboxEvent.TABLE)
+@NamedQuery(name = OutboxEvent.NEXT_BATCH, query = "select e from OutboxEvent e where e.relayed = false order by e.id")
+@NamedQuery(name = OutboxEvent.MARK_RELAYED, query = "update OutboxEvent e set e.relayed = true where e.id in :ids")
+@NamedQuery(name = OutboxEvent.RESET_RELAYED, query = "update OutboxEvent e set e.relayed = false where e.relayed = true")
+@NamedQuery(name = OutboxEvent.DELETE_BY_IDS, query = "delete from OutboxEvent e where e.id in :ids")
+@NamedQuery(name = OutboxEvent.PENDING, query = "select count(e), min(e.createdAt) from OutboxEvent e")
+public class OutboxEvent {
+    public static final String TABLE = "OUTBOX";
+    public static final String SEQUENCE = "OUTBOX_SEQ";
+    public static final String NEXT_BATCH = "OutboxEvent.nextBatch";
+    public static final String MARK_RELAYED = "OutboxEvent.markRelayed";
+    public static final String RESET_RELAYED = "OutboxEvent.resetRelayed";
+    public static final String DELETE_BY_IDS = "OutboxEvent.deleteByIds";
+    public static final String PENDING = "OutboxEvent.pending";
+
+    /**
+     * Из последовательности, а не identity: identity-столбец H2 в режиме LEGACY выдаёт повторяющиеся
+     * значения при одновременных вставках
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = SEQUENCE, allocationSize = 1)
+    private long id;
+
+    /**
+     * Имя сущности: Employee, Department, ParkingSpace
+     */
+    @Column(nullable = false)
+    private String aggregateType;
+
+    private int aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ChangeType operation;
+
+    /**
+     * Изменённые свойства через запятую, только для UPDATED
+     */
+    @Column(length = 1000)
+    private String changedProperties;
+
+    @JdbcTypeCode(SqlTypes.TIMESTAMP)
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Событие уже в потоке и ждёт подтверждения; после перезапуска сбрасывается, и событие публикуется снова
+     */
+    @Column(nullable = false)
+    private boolean relayed;
+
+    /**
+     * INSERT одного события; nextId — выражение диалекта для следующего значения {@link #SEQUENCE}
+     */
+    public static String insert(String nextId) {
+        return "insert into " + TABLE + " (id, aggregateType, aggregateId, operation, changedProperties, createdAt, relayed) values ("
+                + nextId + ", ?, ?, ?, ?, ?, false)";
+    }
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String aggregateType, int aggregateId, ChangeType operation, String changedProperties, Instant createdAt) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.operation = operation;
+        this.changedProperties = changedProperties;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public int getAggregateId() {
+        return aggregateId;
+    }
+
+    public ChangeType getOperation() {
+        return operation;
+    }
+
+    public String getChangedProperties() {
+        return changedProperties;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isRelayed() {
+        return relayed;
+    }
+}
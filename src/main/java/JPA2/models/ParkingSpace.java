@@ -1,16 +1,32 @@
 package JPA2.models;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@PublishChanges
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "parkingSpace")
 public class ParkingSpace {
     @Id
     private int id;
+    @Version
+    @ColumnDefault("0")
+    private int version;
     private int lot;
     private String location;
-    @OneToOne(mappedBy = "parkingSpace")
+    /**
+     * Обратная сторона без внешнего ключа: Hibernate не может подставить прокси, не зная, есть ли сотрудник,
+     * поэтому ленивой загрузка становится только после байткод-улучшения (без него — отдельный запрос)
+     */
+    @OneToOne(mappedBy = "parkingSpace", fetch = FetchType.LAZY)
     private Employee employee;
 
     public int getId() {
@@ -21,6 +37,10 @@ public class ParkingSpace {
         this.id = id;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     public int getLot() {
         return lot;
     }
@@ -1,20 +1,37 @@
 package JPA2.models;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.Id;
-import jakarta.persistence.ManyToMany;
-import java.util.Collection;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.Set;
 
 /**
  * Проект
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "project")
+@NamedQuery(name = Project.FIND_BY_NAME, query = "select p from Project p where p.name = :name",
+        hints = @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 public class Project {
+    public static final String FIND_BY_NAME = "Project.findByName";
+
     @Id
     private int id;
+    @Version
+    @ColumnDefault("0")
+    private int version;
     private String name;
+    /**
+     * Не кешируется, как и {@link Department#getEmployees()}: сотрудники в кеш второго уровня не попадают
+     */
     @ManyToMany(mappedBy = "projects")
-    private Collection<Employee> employees;
+    @OptimisticLock(excluded = true)
+    private Set<Employee> employees;
 
     public int getId() {
         return id;
@@ -24,6 +41,10 @@ public class Project {
         this.id = id;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
@@ -32,11 +53,11 @@ public class Project {
         this.name = name;
     }
 
-    public Collection<Employee> getEmployees() {
+    public Set<Employee> getEmployees() {
         return employees;
     }
 
-    public void setEmployees(Collection<Employee> employees) {
+    public void setEmployees(Set<Employee> employees) {
         this.employees = employees;
     }
 }
\ No newline at end of file
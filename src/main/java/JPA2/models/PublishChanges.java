@@ -0,0 +1,15 @@
+package JPA2.models;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Изменения сущности записываются в outbox в той же транзакции ({@link JPA2.config.OutboxIntegrator}).
+ * Идентификатор сущности должен быть int.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PublishChanges {
+}
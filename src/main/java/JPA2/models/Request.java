@@ -1,26 +1,54 @@
 
 package JPA2.models;
 
+import JPA2.config.PooledSequenceGenerator;
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
 import java.util.Calendar;
 
 @Entity
-@Table(name = "requests")
+@Table(name = "requests", indexes = {
+        @Index(name = "IDX_REQUESTS_CONVERTX", columnList = "convertX"),
+        @Index(name = "IDX_REQUESTS_EXECUTE", columnList = "execute"),
+        @Index(name = "IDX_REQUESTS_GENERATE_RESPONSE", columnList = "generateResponse")})
+@NamedQuery(name = Request.AFTER_ID, query = "select r from Request r where r.id > :id order by r.id")
+@NamedQuery(name = Request.COMPLETED_BEFORE, query = "select r.id, r.name, r.convertX, r.execute, r.generateResponse "
+        + "from Request r where r.generateResponse < :cutoff "
+        + "and r.convertX is not null and r.execute is not null order by r.id")
+@NamedQuery(name = Request.DELETE_BY_IDS, query = "delete from Request r where r.id in :ids")
 public class Request {
+    public static final String AFTER_ID = "Request.afterId";
+    /**
+     * Завершённые запросы (заполнены все три отметки времени) с generateResponse раньше :cutoff
+     */
+    public static final String COMPLETED_BEFORE = "Request.completedBefore";
+    public static final String DELETE_BY_IDS = "Request.deleteByIds";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "request_seq")
+    @GenericGenerator(name = "request_seq", type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "REQUEST_SEQ"))
     private int id;
     
     private String name;
     
-    @Temporal(TemporalType.TIMESTAMP)
-    public Calendar convertX;
-    
-    @Temporal(TemporalType.TIMESTAMP)
-    public Calendar execute;
-    
-    @Temporal(TemporalType.TIMESTAMP)
-    public Calendar generateResponse;
+    /**
+     * Отметки времени хранятся в прежних столбцах timestamp без часового пояса
+     */
+    @JdbcTypeCode(SqlTypes.TIMESTAMP)
+    private Instant convertX;
+
+    @JdbcTypeCode(SqlTypes.TIMESTAMP)
+    private Instant execute;
+
+    @JdbcTypeCode(SqlTypes.TIMESTAMP)
+    private Instant generateResponse;
 
     public int getId() {
         return id;
@@ -38,27 +66,54 @@ public class Request {
         this.name = name;
     }
 
-    public Calendar getConvertX() {
+    public Instant getConvertXInstant() {
         return convertX;
     }
 
-    public void setConvertX(Calendar convertX) {
+    public void setConvertXInstant(Instant convertX) {
         this.convertX = convertX;
     }
 
-    public Calendar getExecute() {
+    public Instant getExecuteInstant() {
         return execute;
     }
 
-    public void setExecute(Calendar execute) {
+    public void setExecuteInstant(Instant execute) {
         this.execute = execute;
     }
 
-    public Calendar getGenerateResponse() {
+    public Instant getGenerateResponseInstant() {
         return generateResponse;
     }
 
-    public void setGenerateResponse(Calendar generateResponse) {
+    public void setGenerateResponseInstant(Instant generateResponse) {
         this.generateResponse = generateResponse;
     }
+
+    /**
+     * Прежний доступ через Calendar: возвращает копию, {@link #getConvertXInstant()} не создаёт объектов
+     */
+    public Calendar getConvertX() {
+        return LegacyTime.toCalendar(convertX);
+    }
+
+    public void setConvertX(Calendar convertX) {
+        this.convertX = LegacyTime.toInstant(convertX);
+    }
+
+    public Calendar getExecute() {
+        return LegacyTime.toCalendar(execute);
+    }
+
+    public void setExecute(Calendar execute) {
+        this.execute = LegacyTime.toInstant(execute);
+    }
+
+    public Calendar getGenerateResponse() {
+        return LegacyTime.toCalendar(generateResponse);
+    }
+
+    public void setGenerateResponse(Calendar generateResponse) {
+        this.generateResponse = LegacyTime.toInstant(generateResponse);
+    }
 }
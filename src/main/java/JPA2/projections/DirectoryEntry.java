@@ -0,0 +1,7 @@
+package JPA2.projections;
+
+/**
+ * Строка справочника сотрудников
+ */
+public record DirectoryEntry(int id, String name, String departmentName) {
+}
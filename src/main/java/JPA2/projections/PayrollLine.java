@@ -0,0 +1,9 @@
+package JPA2.projections;
+
+import JPA2.models.EmployeeType;
+
+/**
+ * Строка ведомости на зарплату
+ */
+public record PayrollLine(int id, String name, long salary, EmployeeType type, String departmentName) {
+}
@@ -0,0 +1,57 @@
+package JPA2.services;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Попадания и промахи кеша второго уровня по регионам (нужен hibernate.generate_statistics=true)
+ */
+@Service
+public class CacheStatisticsService {
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    public Map<String, RegionStatistics> getRegionStatistics() {
+        Statistics statistics = getStatistics();
+        TreeSet<String> regions = new TreeSet<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames())
+            regions.add(region);
+        regions.add(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+        Map<String, RegionStatistics> result = new LinkedHashMap<>();
+        for (String region : regions) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats != null)
+                result.put(region, new RegionStatistics(region, stats.getHitCount(), stats.getMissCount(),
+                        stats.getPutCount(), stats.getElementCountInMemory()));
+        }
+        return result;
+    }
+
+    public RegionStatistics getRegionStatistics(String region) {
+        return getRegionStatistics().get(region);
+    }
+
+    public Statistics getStatistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Статистика одного региона; elementCount = -1, если провайдер кеша его не считает
+     */
+    public record RegionStatistics(String region, long hits, long misses, long puts, long elementCount) {
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : hits / (double) total;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package JPA2.services;
+
+import JPA2.models.ChangeType;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Событие потока {@link ChangeEventStream}. sequence растёт на единицу для каждого события потока;
+ * outboxId — id строки outbox, по нему подписчик отбрасывает повторы.
+ */
+public record ChangeEvent(long sequence, long outboxId, String aggregateType, int aggregateId,
+                          ChangeType operation, List<String> changedProperties, Instant createdAt) {
+}
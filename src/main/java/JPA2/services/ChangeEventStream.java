@@ -0,0 +1,227 @@
+package JPA2.services;
+
+import JPA2.models.ChangeType;
+import JPA2.models.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Поток событий об изменениях внутри процесса: кольцевой буфер на capacity событий, который
+ * наполняет {@link OutboxRelay}. Событие остаётся в буфере, пока его не подтвердят все подписчики,
+ * поэтому память ограничена, а медленный подписчик останавливает перенос из outbox — события
+ * копятся в таблице, а не в памяти.
+ * <p>
+ * Доставка «хотя бы один раз»: poll отдаёт события после последнего выданного, acknowledge
+ * подтверждает обработку. Повторная подписка с тем же именем (например, после сбоя обработчика)
+ * начинает с первого неподтверждённого события. Новый подписчик получает только события,
+ * опубликованные после подписки. Подписчики из outbox.subscribers регистрируются при создании потока,
+ * до первой публикации, и получают все события, в том числе после перезапуска.
+ * <p>
+ * Когда событие подтверждено всеми подписчиками, его outboxId попадает в список для
+ * {@link #takeAcknowledged()}: по нему {@link OutboxRelay} удаляет строки outbox.
+ */
+@Service
+public class ChangeEventStream {
+    private final ChangeEvent[] ring;
+
+    /**
+     * sequence последнего опубликованного события
+     */
+    private long published;
+
+    /**
+     * sequence, до которого все события подтверждены всеми подписчиками
+     */
+    private long acknowledged;
+
+    /**
+     * outboxId подтверждённых всеми событий, которые ещё не забрал {@link #takeAcknowledged()}
+     */
+    private List<Long> acknowledgedOutboxIds = new ArrayList<>();
+
+    private final Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+
+    public ChangeEventStream(int capacity) {
+        this(capacity, new String[0]);
+    }
+
+    @Autowired
+    public ChangeEventStream(@Value("${outbox.streamCapacity:10000}") int capacity,
+                             @Value("${outbox.subscribers:}") String[] subscribers) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.ring = new ChangeEvent[capacity];
+        for (String name : subscribers) {
+            if (!name.isBlank())
+                subscribe(name.trim());
+        }
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    public synchronized long published() {
+        return published;
+    }
+
+    public synchronized boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Сколько событий можно опубликовать, не затирая неподтверждённые
+     */
+    public synchronized int remainingCapacity() {
+        long oldest = published;
+        for (Subscription subscription : subscriptions.values())
+            oldest = Math.min(oldest, subscription.acknowledged);
+        return (int) (ring.length - (published - oldest));
+    }
+
+    /**
+     * Публикует строки outbox в порядке списка
+     *
+     * @return sequence последнего опубликованного события
+     * @throws IllegalStateException если событий больше, чем {@link #remainingCapacity()}
+     */
+    public synchronized long publish(List<OutboxEvent> events) {
+        if (events.size() > remainingCapacity())
+            throw new IllegalStateException(events.size() + " events exceed the remaining capacity " + remainingCapacity());
+        for (OutboxEvent event : events) {
+            published++;
+            ring[index(published)] = new ChangeEvent(published, event.getId(), event.getAggregateType(),
+                    event.getAggregateId(), event.getOperation(), properties(event), event.getCreatedAt());
+        }
+        if (!events.isEmpty())
+            notifyAll();
+        advance();
+        return published;
+    }
+
+    /**
+     * Забирает outboxId событий, подтверждённых всеми подписчиками с прошлого вызова
+     */
+    public synchronized List<Long> takeAcknowledged() {
+        List<Long> ids = acknowledgedOutboxIds;
+        acknowledgedOutboxIds = new ArrayList<>();
+        return ids;
+    }
+
+    /**
+     * Переносит в {@link #acknowledgedOutboxIds} события, которые подтвердил последний из подписчиков.
+     * Вызывается при каждом изменении подтверждений, пока ячейки этих событий ещё не заняты новыми
+     */
+    private void advance() {
+        long oldest = published;
+        for (Subscription subscription : subscriptions.values())
+            oldest = Math.min(oldest, subscription.acknowledged);
+        for (long sequence = acknowledged + 1; sequence <= oldest; sequence++)
+            acknowledgedOutboxIds.add(ring[index(sequence)].outboxId());
+        acknowledged = Math.max(acknowledged, oldest);
+    }
+
+    /**
+     * Подписка по имени; существующая подписка возвращается к первому неподтверждённому событию
+     */
+    public synchronized Subscription subscribe(String name) {
+        Subscription subscription = subscriptions.get(name);
+        if (subscription == null) {
+            subscription = new Subscription(name, published);
+            subscriptions.put(name, subscription);
+        } else {
+            subscription.delivered = subscription.acknowledged;
+        }
+        return subscription;
+    }
+
+    public synchronized void unsubscribe(String name) {
+        subscriptions.remove(name);
+        advance();
+        notifyAll();
+    }
+
+    /**
+     * Отставание подписчиков: сколько опубликованных событий ещё не подтверждено
+     */
+    public synchronized Map<String, Long> lag() {
+        Map<String, Long> lag = new LinkedHashMap<>();
+        for (Subscription subscription : subscriptions.values())
+            lag.put(subscription.name, published - subscription.acknowledged);
+        return lag;
+    }
+
+    private int index(long sequence) {
+        return (int) ((sequence - 1) % ring.length);
+    }
+
+    private static List<String> properties(OutboxEvent event) {
+        if (event.getOperation() != ChangeType.UPDATED || event.getChangedProperties() == null)
+            return List.of();
+        return List.of(event.getChangedProperties().split(","));
+    }
+
+    public final class Subscription {
+        private final String name;
+        private long acknowledged;
+        private long delivered;
+
+        private Subscription(String name, long position) {
+            this.name = name;
+            this.acknowledged = position;
+            this.delivered = position;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * До max следующих событий; если их нет, ждёт не дольше timeoutMillis
+         *
+         * @return пустой список, если за это время ничего не опубликовано
+         */
+        public List<ChangeEvent> poll(int max, long timeoutMillis) throws InterruptedException {
+            synchronized (ChangeEventStream.this) {
+                long deadline = System.currentTimeMillis() + timeoutMillis;
+                while (delivered == published && subscriptions.get(name) == this) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0)
+                        return List.of();
+                    ChangeEventStream.this.wait(wait);
+                }
+                if (subscriptions.get(name) != this)
+                    throw new IllegalStateException("Subscription " + name + " is closed");
+                int count = (int) Math.min(max, published - delivered);
+                List<ChangeEvent> events = new ArrayList<>(count);
+                for (int i = 0; i < count; i++)
+                    events.add(ring[index(++delivered)]);
+                return events;
+            }
+        }
+
+        /**
+         * Подтверждает обработку всех событий до sequence включительно, освобождая место в буфере
+         */
+        public void acknowledge(long sequence) {
+            synchronized (ChangeEventStream.this) {
+                if (sequence > delivered)
+                    throw new IllegalArgumentException("Event " + sequence + " has not been delivered to " + name);
+                acknowledged = Math.max(acknowledged, sequence);
+                advance();
+            }
+        }
+
+        /**
+         * Сколько опубликованных событий подписчик ещё не подтвердил
+         */
+        public long lag() {
+            synchronized (ChangeEventStream.this) {
+                return published - acknowledged;
+            }
+        }
+    }
+}
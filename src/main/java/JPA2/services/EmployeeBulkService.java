@@ -0,0 +1,184 @@
+package JPA2.services;
+
+import JPA2.models.ChangeType;
+import JPA2.models.Employee;
+import JPA2.models.OutboxEvent;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.sqm.tree.domain.SqmPath;
+import org.hibernate.query.sqm.tree.expression.SqmExpression;
+import org.hibernate.query.sqm.tree.from.SqmRoot;
+import org.hibernate.query.sqm.tree.insert.SqmInsertSelectStatement;
+import org.hibernate.query.sqm.tree.select.SqmSelectClause;
+import org.hibernate.query.sqm.tree.select.SqmSelectStatement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Массовые изменения сотрудников одним SQL-оператором UPDATE/DELETE вместо загрузки и изменения по одному.
+ * UPDATE увеличивает версию изменённых сотрудников.
+ * Перед оператором несохранённые изменения сбрасываются в базу; после него загруженные в текущий
+ * persist-контекст сотрудники, которых затронул фильтр, перечитываются (UPDATE) или отсоединяются (DELETE),
+ * чтобы не остались устаревшие копии. Остальные загруженные сотрудники не трогаются.
+ * Методы возвращают число изменённых строк.
+ * <p>
+ * Сотрудники публикуют изменения ({@link JPA2.models.PublishChanges}), но массовый оператор проходит мимо
+ * слушателей Hibernate, поэтому события outbox для отобранных строк пишет сам сервис — одним
+ * INSERT ... SELECT с теми же условиями перед оператором, в той же транзакции.
+ */
+@Service
+@Transactional
+public class EmployeeBulkService {
+    @PersistenceContext
+    EntityManager em;
+
+    @Value("${outbox.enabled:true}")
+    private boolean outboxEnabled;
+
+    public int raiseSalary(EmployeeFilter filter, long amount) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaUpdate<Employee> update = cb.createCriteriaUpdate(Employee.class);
+        Root<Employee> e = update.from(Employee.class);
+        Path<Long> salary = e.get("salary");
+        update.set(salary, cb.sum(salary, amount));
+        return executeUpdate(update, cb, e, filter);
+    }
+
+    /**
+     * Повышает зарплату на percent процентов; дробная часть отбрасывается
+     */
+    public int raiseSalaryByPercent(EmployeeFilter filter, int percent) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaUpdate<Employee> update = cb.createCriteriaUpdate(Employee.class);
+        Root<Employee> e = update.from(Employee.class);
+        Path<Long> salary = e.get("salary");
+        update.set(salary, cb.sum(salary, cb.quot(cb.prod(salary, (long) percent), 100L).as(Long.class)));
+        return executeUpdate(update, cb, e, filter);
+    }
+
+    public int setSalary(EmployeeFilter filter, long value) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaUpdate<Employee> update = cb.createCriteriaUpdate(Employee.class);
+        Root<Employee> e = update.from(Employee.class);
+        update.set(e.<Long>get("salary"), value);
+        return executeUpdate(update, cb, e, filter);
+    }
+
+    /**
+     * Удаляет сотрудников вместе с их телефонами и участием в проектах
+     */
+    public int delete(EmployeeFilter filter) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaDelete<Employee> delete = cb.createCriteriaDelete(Employee.class);
+        Root<Employee> e = delete.from(Employee.class);
+        Predicate[] predicates = where(cb, e, filter);
+        // пустой where Hibernate 6.4 не принимает
+        if (predicates.length > 0)
+            delete.where(predicates);
+        em.flush();
+        // после flush состояние в памяти совпадает с базой, и фильтр отбирает те же строки, что и DELETE
+        List<Employee> affected = managedEmployees(filter);
+        writeOutbox(filter, ChangeType.DELETED, null);
+        int rows = em.createQuery(delete).executeUpdate();
+        for (Employee emp : affected)
+            em.detach(emp);
+        return rows;
+    }
+
+    private int executeUpdate(CriteriaUpdate<Employee> update, CriteriaBuilder cb, Root<Employee> e, EmployeeFilter filter) {
+        // версия растёт, как при изменении через сущность: транзакция, прочитавшая сотрудника
+        // до массового изменения, не перезапишет новую зарплату старой
+        Path<Integer> version = e.get("version");
+        update.set(version, cb.sum(version, 1));
+        Predicate[] predicates = where(cb, e, filter);
+        if (predicates.length > 0)
+            update.where(predicates);
+        em.flush();
+        List<Employee> affected = managedEmployees(filter);
+        // до UPDATE: после него фильтр по зарплате отобрал бы другие строки
+        writeOutbox(filter, ChangeType.UPDATED, "salary");
+        int rows = em.createQuery(update).executeUpdate();
+        for (Employee emp : affected)
+            em.refresh(emp);
+        return rows;
+    }
+
+    private static Predicate[] where(CriteriaBuilder cb, Root<Employee> e, EmployeeFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.departmentId() != null)
+            predicates.add(cb.equal(e.get("department").get("id"), filter.departmentId()));
+        if (filter.type() != null)
+            predicates.add(cb.equal(e.get("type"), filter.type()));
+        if (filter.minSalary() != null)
+            predicates.add(cb.ge(e.get("salary"), filter.minSalary()));
+        if (filter.maxSalary() != null)
+            predicates.add(cb.le(e.get("salary"), filter.maxSalary()));
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    /**
+     * Пишет по событию outbox на каждого сотрудника, отобранного фильтром: INSERT ... SELECT
+     * с теми же условиями {@link #where}, что и у самого UPDATE/DELETE
+     */
+    private void writeOutbox(EmployeeFilter filter, ChangeType operation, String changedProperties) {
+        if (!outboxEnabled)
+            return;
+        Session session = em.unwrap(Session.class);
+        HibernateCriteriaBuilder cb = session.getCriteriaBuilder();
+        // у JpaCriteriaInsertSelect в Hibernate 6.4 нет методов: столбцы и SELECT задаются через SQM-дерево
+        SqmInsertSelectStatement<OutboxEvent> insert =
+                (SqmInsertSelectStatement<OutboxEvent>) cb.createCriteriaInsertSelect(OutboxEvent.class);
+        SqmRoot<OutboxEvent> event = insert.getTarget();
+        SqmSelectStatement<Object> select = (SqmSelectStatement<Object>) cb.createQuery();
+        SqmRoot<Employee> e = select.from(Employee.class);
+        // каждое значение — отдельный элемент SELECT, по позиции он совпадает со столбцом INSERT
+        SqmSelectClause values = select.getQuerySpec().getSelectClause();
+        insertValue(insert, values, event.get("aggregateType"), cb.literal("Employee"));
+        insertValue(insert, values, event.get("aggregateId"), e.get("id"));
+        insertValue(insert, values, event.get("operation"), cb.parameter(ChangeType.class, "operation"));
+        insertValue(insert, values, event.get("createdAt"), cb.parameter(Instant.class, "createdAt"));
+        insertValue(insert, values, event.get("relayed"), cb.literal(false));
+        if (changedProperties != null)
+            insertValue(insert, values, event.get("changedProperties"), cb.parameter(String.class, "properties"));
+        Predicate[] predicates = where(cb, e, filter);
+        if (predicates.length > 0)
+            select.where(predicates);
+        insert.setSelectQueryPart(select.getQuerySpec());
+        MutationQuery query = session.createMutationQuery(insert)
+                .setParameter("operation", operation)
+                .setParameter("createdAt", Instant.now());
+        if (changedProperties != null)
+            query.setParameter("properties", changedProperties);
+        query.executeUpdate();
+    }
+
+    private static void insertValue(SqmInsertSelectStatement<?> insert, SqmSelectClause values, SqmPath<?> column,
+                                    Expression<?> value) {
+        insert.addInsertTargetStateField(column);
+        values.add((SqmExpression<?>) value, null);
+    }
+
+    private List<Employee> managedEmployees(EmployeeFilter filter) {
+        List<Employee> employees = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry
+                : em.unwrap(SessionImplementor.class).getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Employee emp && entry.getValue().getStatus() == Status.MANAGED
+                    && filter.matches(emp))
+                employees.add(emp);
+        }
+        return employees;
+    }
+}
@@ -0,0 +1,165 @@
+package JPA2.services;
+
+import JPA2.models.Address;
+import JPA2.models.Employee;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Выгрузка всех сотрудников (с адресом и телефонами) потоком.
+ * Строки читаются курсором FORWARD_ONLY порциями по fetchSize и сразу пишутся в выходной поток;
+ * после каждой порции persist-контекст очищается, так что память не зависит от размера таблицы.
+ * Формат CSV совпадает с форматом {@link EmployeeImportService}.
+ */
+@Service
+public class EmployeeExportService {
+    public static final String CSV_HEADER = "id,name,salary,type,dob,startDate,street,city,state,zip,phones";
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Value("${export.fetchSize:500}")
+    private int fetchSize;
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long rows = scroll(emp -> {
+            try {
+                Address address = emp.getAddress() == null ? new Address() : emp.getAddress();
+                writer.write(emp.getId() + "," + csv(emp.getName()) + "," + emp.getSalary() + ","
+                        + (emp.getType() == null ? "" : emp.getType().name()) + ","
+                        + nullToEmpty(emp.getDobLocalDate()) + "," + nullToEmpty(emp.getStartLocalDate()) + ","
+                        + csv(address.getStreet()) + "," + csv(address.getCity()) + ","
+                        + csv(address.getState()) + "," + csv(address.getZip()) + ","
+                        + csv(phones(emp.getPhoneNumbers())) + "\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, writer);
+        writer.flush();
+        return rows;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportJson(OutputStream out) throws IOException {
+        JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+        json.writeStartArray();
+        long rows = scroll(emp -> {
+            try {
+                json.writeStartObject();
+                json.writeNumberField("id", emp.getId());
+                json.writeStringField("name", emp.getName());
+                json.writeNumberField("salary", emp.getSalary());
+                json.writeStringField("type", emp.getType() == null ? null : emp.getType().name());
+                json.writeStringField("dob", toString(emp.getDobLocalDate()));
+                json.writeStringField("startDate", toString(emp.getStartLocalDate()));
+                if (emp.getAddress() != null) {
+                    json.writeObjectFieldStart("address");
+                    json.writeStringField("street", emp.getAddress().getStreet());
+                    json.writeStringField("city", emp.getAddress().getCity());
+                    json.writeStringField("state", emp.getAddress().getState());
+                    json.writeStringField("zip", emp.getAddress().getZip());
+                    json.writeEndObject();
+                }
+                json.writeObjectFieldStart("phoneNumbers");
+                if (emp.getPhoneNumbers() != null) {
+                    for (Map.Entry<String, String> phone : emp.getPhoneNumbers().entrySet())
+                        json.writeStringField(phone.getKey(), phone.getValue());
+                }
+                json.writeEndObject();
+                json.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, json);
+        json.writeEndArray();
+        json.flush();
+        return rows;
+    }
+
+    /**
+     * Обходит всех сотрудников по возрастанию id. Телефоны подтягиваются тем же запросом,
+     * связи с отделом и парковкой не загружаются.
+     */
+    private long scroll(Consumer<Employee> writeRow, Flushable output) throws IOException {
+        Session session = em.unwrap(Session.class);
+        EntityGraph<Employee> graph = em.createEntityGraph(Employee.class);
+        graph.addAttributeNodes("phoneNumbers");
+        long rows = 0;
+        try (ScrollableResults<Employee> results = session
+                .createNamedQuery(Employee.FIND_ALL, Employee.class)
+                .setHint("jakarta.persistence.fetchgraph", graph)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Employee emp = results.get();
+                try {
+                    writeRow.accept(emp);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                if (++rows % fetchSize == 0) {
+                    output.flush();
+                    session.clear();
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static String phones(Map<String, String> phoneNumbers) {
+        if (phoneNumbers == null)
+            return "";
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> phone : phoneNumbers.entrySet()) {
+            if (sb.length() > 0)
+                sb.append('|');
+            sb.append(phone.getKey()).append('=').append(phone.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static String csv(String value) {
+        if (value == null)
+            return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String nullToEmpty(LocalDate value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String toString(LocalDate value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package JPA2.services;
+
+import JPA2.models.Employee;
+import JPA2.models.EmployeeType;
+
+/**
+ * Отбор сотрудников для массовых операций; пустое поле не ограничивает выборку.
+ * Границы зарплаты включительные.
+ */
+public record EmployeeFilter(Integer departmentId, EmployeeType type, Long minSalary, Long maxSalary) {
+
+    public static EmployeeFilter all() {
+        return new EmployeeFilter(null, null, null, null);
+    }
+
+    public EmployeeFilter department(int departmentId) {
+        return new EmployeeFilter(departmentId, type, minSalary, maxSalary);
+    }
+
+    public EmployeeFilter type(EmployeeType type) {
+        return new EmployeeFilter(departmentId, type, minSalary, maxSalary);
+    }
+
+    public EmployeeFilter salaryBetween(Long minSalary, Long maxSalary) {
+        return new EmployeeFilter(departmentId, type, minSalary, maxSalary);
+    }
+
+    /**
+     * Проверяет загруженного сотрудника теми же условиями, что и WHERE массовой операции
+     */
+    public boolean matches(Employee emp) {
+        if (departmentId != null && (emp.getDepartment() == null || emp.getDepartment().getId() != departmentId))
+            return false;
+        if (type != null && emp.getType() != type)
+            return false;
+        if (minSalary != null && emp.getSalary() < minSalary)
+            return false;
+        return maxSalary == null || emp.getSalary() <= maxSalary;
+    }
+}
@@ -0,0 +1,174 @@
+package JPA2.services;
+
+import JPA2.models.*;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Массовая загрузка сотрудников из CSV.
+ * <p>
+ * Первая строка — заголовок, порядок колонок произвольный:
+ * name, salary, type, dob, startDate, departmentId, street, city, state, zip, phones, projects.
+ * Даты в формате yyyy-MM-dd, телефоны — {@code Домашний=5113195|Рабочий=5113196},
+ * проекты — идентификаторы через {@code |}. Отделы и проекты должны уже существовать.
+ * <p>
+ * Каждые batchSize сотрудников persist-контекст сбрасывается в базу (JDBC batch) и очищается,
+ * поэтому память не растёт с размером файла.
+ */
+@Service
+public class EmployeeImportService {
+    static Logger LOGGER = Logger.getLogger(EmployeeImportService.class);
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Value("${hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Transactional
+    public ImportResult importCsv(Reader input) throws IOException {
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(input);
+        String header = reader.readLine();
+        if (header == null)
+            return new ImportResult(0, System.nanoTime() - started);
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseLine(header);
+        for (int i = 0; i < names.size(); i++)
+            columns.put(names.get(i).trim(), i);
+
+        long rows = 0;
+        int lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank())
+                continue;
+            em.persist(toEmployee(parseLine(line), columns, lineNumber));
+            if (++rows % batchSize == 0) {
+                em.flush();
+                em.clear();
+                LOGGER.debug("Загружено " + rows + " сотрудников");
+            }
+        }
+        em.flush();
+        em.clear();
+        ImportResult result = new ImportResult(rows, System.nanoTime() - started);
+        LOGGER.info("Загружено " + rows + " сотрудников, " + Math.round(result.rowsPerSecond()) + " строк/с");
+        return result;
+    }
+
+    private Employee toEmployee(List<String> values, Map<String, Integer> columns, int lineNumber) {
+        Employee emp = new Employee();
+        emp.setName(value(values, columns, "name"));
+        String salary = value(values, columns, "salary");
+        if (salary != null)
+            emp.setSalary(Long.parseLong(salary));
+        String type = value(values, columns, "type");
+        if (type != null)
+            emp.setType(EmployeeType.valueOf(type));
+        String dob = value(values, columns, "dob");
+        if (dob != null)
+            emp.setDobLocalDate(LocalDate.parse(dob));
+        String startDate = value(values, columns, "startDate");
+        if (startDate != null)
+            emp.setStartLocalDate(LocalDate.parse(startDate));
+        String departmentId = value(values, columns, "departmentId");
+        if (departmentId != null)
+            emp.setDepartment(em.getReference(Department.class, Integer.parseInt(departmentId)));
+
+        Address address = new Address();
+        address.setStreet(value(values, columns, "street"));
+        address.setCity(value(values, columns, "city"));
+        address.setState(value(values, columns, "state"));
+        address.setZip(value(values, columns, "zip"));
+        emp.setAddress(address);
+
+        Map<String, String> phoneNumbers = new HashMap<>();
+        String phones = value(values, columns, "phones");
+        if (phones != null) {
+            for (String phone : phones.split("\\|")) {
+                int eq = phone.indexOf('=');
+                if (eq <= 0)
+                    throw new IllegalArgumentException("Строка " + lineNumber + ": телефон должен быть вида тип=номер: " + phone);
+                phoneNumbers.put(phone.substring(0, eq), phone.substring(eq + 1));
+            }
+        }
+        emp.setPhoneNumbers(phoneNumbers);
+
+        Set<Project> projects = new HashSet<>();
+        String projectIds = value(values, columns, "projects");
+        if (projectIds != null) {
+            for (String projectId : projectIds.split("\\|"))
+                projects.add(em.getReference(Project.class, Integer.parseInt(projectId.trim())));
+        }
+        emp.setProjects(projects);
+        return emp;
+    }
+
+    private static String value(List<String> values, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= values.size())
+            return null;
+        String value = values.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Разбор строки CSV: разделитель запятая, значения с запятыми и кавычками берутся в двойные кавычки
+     */
+    static List<String> parseLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    /**
+     * Итог загрузки
+     */
+    public record ImportResult(long rows, long elapsedNanos) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package JPA2.services;
+
+import JPA2.models.Employee;
+import JPA2.projections.DirectoryEntry;
+import JPA2.projections.PayrollLine;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Чтение сотрудников сразу в records (конструкторные выражения JPQL).
+ * Выбираются только нужные колонки; сущности не создаются, не попадают в persist-контекст
+ * и не проверяются на изменения при flush.
+ */
+@Service
+@Transactional(readOnly = true)
+public class EmployeeProjectionService {
+    @PersistenceContext
+    EntityManager em;
+
+    public List<DirectoryEntry> directory() {
+        return em.createNamedQuery(Employee.DIRECTORY, DirectoryEntry.class).getResultList();
+    }
+
+    public List<DirectoryEntry> directoryByDepartment(int departmentId) {
+        return em.createNamedQuery(Employee.DIRECTORY_BY_DEPARTMENT, DirectoryEntry.class)
+                .setParameter("department", departmentId)
+                .getResultList();
+    }
+
+    public List<PayrollLine> payroll() {
+        return em.createNamedQuery(Employee.PAYROLL, PayrollLine.class).getResultList();
+    }
+
+    public List<PayrollLine> payrollByDepartment(int departmentId) {
+        return em.createNamedQuery(Employee.PAYROLL_BY_DEPARTMENT, PayrollLine.class)
+                .setParameter("department", departmentId)
+                .getResultList();
+    }
+}
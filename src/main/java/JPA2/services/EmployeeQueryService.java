@@ -0,0 +1,43 @@
+package JPA2.services;
+
+import JPA2.models.Employee;
+import JPA2.models.EmployeeFetchPlan;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Чтение сотрудников с выбранным планом загрузки связей (named entity graph)
+ */
+@Service
+@Transactional(readOnly = true)
+public class EmployeeQueryService {
+    @PersistenceContext
+    EntityManager em;
+
+    public Employee find(int id, EmployeeFetchPlan plan) {
+        return em.find(Employee.class, id, Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(plan.getGraphName())));
+    }
+
+    public List<Employee> findByDepartment(int departmentId, EmployeeFetchPlan plan) {
+        return withPlan(em.createNamedQuery(Employee.FIND_BY_DEPARTMENT, Employee.class), plan)
+                .setParameter("department", departmentId)
+                .getResultList();
+    }
+
+    public List<Employee> findByName(String name, EmployeeFetchPlan plan) {
+        return withPlan(em.createNamedQuery(Employee.FIND_BY_NAME, Employee.class), plan)
+                .setParameter("name", name)
+                .getResultList();
+    }
+
+    private TypedQuery<Employee> withPlan(TypedQuery<Employee> query, EmployeeFetchPlan plan) {
+        return query.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(plan.getGraphName()));
+    }
+}
@@ -0,0 +1,51 @@
+package JPA2.services;
+
+import JPA2.models.Department;
+import JPA2.models.Employee;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Изменения отдельного сотрудника: читают его заново в каждой попытке {@link OptimisticRetryTemplate},
+ * поэтому одновременные изменения одного сотрудника не теряются, а применяются по очереди.
+ */
+@Service
+public class EmployeeUpdateService {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    OptimisticRetryTemplate retryTemplate;
+
+    /**
+     * @return новая зарплата
+     */
+    public long raiseSalary(int employeeId, long amount) {
+        return retryTemplate.execute(status -> {
+            Employee emp = find(employeeId);
+            emp.setSalary(emp.getSalary() + amount);
+            return emp.getSalary();
+        });
+    }
+
+    public void transfer(int employeeId, int departmentId) {
+        retryTemplate.execute(status -> {
+            Department department = em.find(Department.class, departmentId);
+            if (department == null)
+                throw new EntityNotFoundException("No department " + departmentId);
+            find(employeeId).setDepartment(department);
+            return null;
+        });
+    }
+
+    private Employee find(int employeeId) {
+        Employee emp = em.find(Employee.class, employeeId);
+        if (emp == null)
+            throw new EntityNotFoundException("No employee " + employeeId);
+        return emp;
+    }
+}
@@ -0,0 +1,12 @@
+package JPA2.services;
+
+import java.util.List;
+
+/**
+ * Страница результатов и непрозрачный токен следующей страницы (null — страниц больше нет)
+ */
+public record KeysetPage<T>(List<T> items, String next) {
+    public boolean hasNext() {
+        return next != null;
+    }
+}
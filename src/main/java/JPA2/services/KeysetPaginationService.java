@@ -0,0 +1,134 @@
+package JPA2.services;
+
+import JPA2.models.Employee;
+import JPA2.models.EmployeeFetchPlan;
+import JPA2.models.EmployeeOrder;
+import JPA2.models.Request;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Постраничное чтение по ключу (keyset/seek) вместо OFFSET.
+ * Следующая страница начинается условием «ключ больше ключа последней строки», поэтому база
+ * сразу переходит к нужному месту индекса и время страницы не зависит от её номера.
+ * Ключ последней строки передаётся клиенту в виде непрозрачного токена (base64url).
+ * Строки с пустым значением колонки идут первыми, как в индексах H2.
+ */
+@Service
+@Transactional(readOnly = true)
+public class KeysetPaginationService {
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    @PersistenceContext
+    EntityManager em;
+
+    public KeysetPage<Employee> employees(EmployeeOrder order, String token, int size) {
+        return employees(order, token, size, EmployeeFetchPlan.SUMMARY);
+    }
+
+    public KeysetPage<Employee> employees(EmployeeOrder order, String token, int size, EmployeeFetchPlan plan) {
+        checkSize(size);
+        Key key = token == null ? null : decode(token, order.name());
+        String column = order.getColumn();
+        StringBuilder jpql = new StringBuilder("select e from Employee e");
+        if (key != null && column == null) {
+            jpql.append(" where e.id > :id");
+        } else if (key != null && key.value() == null) {
+            jpql.append(" where ").append(column).append(" is not null or e.id > :id");
+        } else if (key != null) {
+            jpql.append(" where ").append(column).append(" >= :value and (")
+                    .append(column).append(" > :value or e.id > :id)");
+        }
+        jpql.append(" order by ");
+        if (column != null)
+            jpql.append(column).append(" nulls first, ");
+        jpql.append("e.id");
+
+        TypedQuery<Employee> query = em.createQuery(jpql.toString(), Employee.class)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(plan.getGraphName()))
+                .setMaxResults(size + 1);
+        if (key != null) {
+            query.setParameter("id", key.id());
+            if (key.value() != null)
+                query.setParameter("value", parseValue(order, key.value()));
+        }
+        List<Employee> rows = query.getResultList();
+        if (rows.size() <= size)
+            return new KeysetPage<>(rows, null);
+        rows = new ArrayList<>(rows.subList(0, size));
+        return new KeysetPage<>(rows, employeeToken(order, rows.get(size - 1)));
+    }
+
+    public KeysetPage<Request> requests(String token, int size) {
+        checkSize(size);
+        Key key = token == null ? null : decode(token, "REQUEST");
+        List<Request> rows = em.createNamedQuery(Request.AFTER_ID, Request.class)
+                .setParameter("id", key == null ? Integer.MIN_VALUE : key.id())
+                .setMaxResults(size + 1)
+                .getResultList();
+        if (rows.size() <= size)
+            return new KeysetPage<>(rows, null);
+        rows = new ArrayList<>(rows.subList(0, size));
+        return new KeysetPage<>(rows, encode("REQUEST", null, rows.get(size - 1).getId()));
+    }
+
+    /**
+     * Токен страницы, следующей за сотрудником last
+     */
+    public String employeeToken(EmployeeOrder order, Employee last) {
+        String value = switch (order) {
+            case ID -> null;
+            case START_DATE -> last.getStartLocalDate() == null ? null : last.getStartLocalDate().toString();
+            case DEPARTMENT -> last.getDepartment() == null ? null : String.valueOf(last.getDepartment().getId());
+        };
+        return encode(order.name(), value, last.getId());
+    }
+
+    private static Object parseValue(EmployeeOrder order, String value) {
+        try {
+            return switch (order) {
+                case START_DATE -> LocalDate.parse(value);
+                case DEPARTMENT -> Integer.valueOf(value);
+                case ID -> throw new IllegalArgumentException("Лишнее значение ключа: " + value);
+            };
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Неверная дата в токене страницы: " + value, e);
+        }
+    }
+
+    private static void checkSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE + ": " + size);
+    }
+
+    private record Key(String value, int id) {
+    }
+
+    private static String encode(String kind, String value, int id) {
+        String raw = kind + ':' + id + (value == null ? "" : ':' + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Key decode(String token, String kind) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неверный токен страницы: " + token, e);
+        }
+        if (parts.length < 2 || !parts[0].equals(kind) || !parts[1].matches("-?\\d+"))
+            throw new IllegalArgumentException("Токен выдан не для этого порядка: " + token);
+        return new Key(parts.length == 3 ? parts[2] : null, Integer.parseInt(parts[1]));
+    }
+}
@@ -0,0 +1,156 @@
+package JPA2.services;
+
+import org.apache.log4j.Logger;
+import org.hibernate.StaleStateException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выполняет действие в транзакции и повторяет его целиком, если транзакция проиграла
+ * оптимистическую блокировку (строку изменили после чтения). Между попытками — пауза
+ * со случайной долей от экспоненциально растущей задержки, чтобы столкнувшиеся транзакции
+ * не повторили столкновение. Действие должно заново читать всё, что меняет, и не иметь
+ * побочных эффектов вне базы: оно может выполниться до maxAttempts раз.
+ * <p>
+ * Транзакцию начинает сам шаблон: внутри чужой транзакции повтор бесполезен, её persist-контекст
+ * уже содержит устаревшие данные.
+ */
+@Service
+public class OptimisticRetryTemplate {
+    static Logger LOGGER = Logger.getLogger(OptimisticRetryTemplate.class);
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    /**
+     * Сколько раз выполнять действие, включая первую попытку
+     */
+    @Value("${retry.maxAttempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Верхняя граница паузы перед первым повтором, мс; каждая следующая в multiplier раз больше
+     */
+    @Value("${retry.initialBackoffMillis:5}")
+    private long initialBackoffMillis;
+
+    @Value("${retry.multiplier:2}")
+    private double multiplier;
+
+    @Value("${retry.maxBackoffMillis:200}")
+    private long maxBackoffMillis;
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    public void setInitialBackoffMillis(long initialBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * @throws OptimisticLockingFailureException если все попытки закончились конфликтом
+     */
+    public <T> T execute(TransactionCallback<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive())
+            throw new IllegalStateException("Optimistic retry must start its own transaction");
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = tx.execute(action);
+                commits.incrementAndGet();
+                return result;
+            } catch (RuntimeException e) {
+                if (!isConflict(e))
+                    throw e;
+                conflicts.incrementAndGet();
+                if (attempt >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    throw translate(e);
+                }
+                if (LOGGER.isDebugEnabled())
+                    LOGGER.debug("Optimistic lock conflict, attempt " + attempt + " of " + maxAttempts + ": " + e.getMessage());
+                try {
+                    Thread.sleep(backoffMillis(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw translate(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Случайная пауза от 0 до initialBackoffMillis * multiplier^(attempt - 1), не больше maxBackoffMillis
+     */
+    long backoffMillis(int attempt) {
+        double bound = Math.min(maxBackoffMillis, initialBackoffMillis * Math.pow(multiplier, attempt - 1));
+        return (long) (ThreadLocalRandom.current().nextDouble() * bound);
+    }
+
+    /**
+     * Конфликт приходит из flush внутри действия (исключения JPA/Hibernate) или из фиксации
+     * (уже переведённым в исключение Spring)
+     */
+    static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException)
+                return true;
+        }
+        return false;
+    }
+
+    private static RuntimeException translate(RuntimeException e) {
+        if (e instanceof DataAccessException)
+            return e;
+        DataAccessException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+        return translated != null ? translated : new ObjectOptimisticLockingFailureException(e.getMessage(), e);
+    }
+
+    /**
+     * Успешно зафиксированные транзакции
+     */
+    public long getCommitCount() {
+        return commits.get();
+    }
+
+    /**
+     * Попытки, закончившиеся конфликтом, включая последние
+     */
+    public long getConflictCount() {
+        return conflicts.get();
+    }
+
+    /**
+     * Действия, для которых не хватило maxAttempts попыток
+     */
+    public long getExhaustedCount() {
+        return exhausted.get();
+    }
+}
@@ -0,0 +1,149 @@
+package JPA2.services;
+
+import JPA2.models.OutboxEvent;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Переносит события из таблицы outbox в {@link ChangeEventStream} пачками по batchSize
+ * (не больше свободного места в потоке). Опубликованная строка остаётся в таблице с отметкой relayed
+ * и удаляется, только когда событие подтвердят все подписчики потока. Пока подписчиков нет,
+ * события не публикуются и ждут в таблице. После перезапуска отметки сбрасываются, и всё
+ * неподтверждённое публикуется снова; так же повторяется пачка, отметить которую не удалось, —
+ * подписчики отбрасывают повторы по outboxId. Строки выбираются по отметке, а не по id,
+ * поэтому событие транзакции, зафиксированной позже соседней с большим id, не теряется.
+ */
+@Service
+public class OutboxRelay {
+    static Logger LOGGER = Logger.getLogger(OutboxRelay.class);
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ChangeEventStream stream;
+
+    /**
+     * Сколько строк outbox читается и удаляется одной транзакцией
+     */
+    @Value("${outbox.batchSize:500}")
+    private int batchSize;
+
+    /**
+     * Отметки relayed прежнего запуска сброшены
+     */
+    private boolean recovered;
+
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * Задержка последнего перенесённого события: от записи в outbox до публикации, мс
+     */
+    private volatile long lastDelayMillis;
+
+    public record Pending(long events, Instant oldest) {
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.pollMillis:1000}")
+    public void scheduledDrain() {
+        int count = drain();
+        if (count > 0 && LOGGER.isDebugEnabled())
+            LOGGER.debug("Relayed " + count + " outbox events");
+    }
+
+    /**
+     * Удаляет подтверждённые всеми подписчиками строки и переносит новые события,
+     * пока они не кончатся или в потоке не кончится место
+     *
+     * @return сколько событий опубликовано
+     */
+    public synchronized int drain() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        if (!recovered) {
+            tx.executeWithoutResult(status -> em.createNamedQuery(OutboxEvent.RESET_RELAYED).executeUpdate());
+            recovered = true;
+        }
+        deleteAcknowledged(tx);
+        if (!stream.hasSubscribers())
+            return 0;
+        int total = 0;
+        while (true) {
+            int limit = Math.min(batchSize, stream.remainingCapacity());
+            if (limit == 0)
+                break;
+            List<OutboxEvent> events = tx.execute(status -> em.createNamedQuery(OutboxEvent.NEXT_BATCH, OutboxEvent.class)
+                    .setMaxResults(limit)
+                    .getResultList());
+            if (events.isEmpty())
+                break;
+            stream.publish(events);
+            List<Long> ids = events.stream().map(OutboxEvent::getId).toList();
+            tx.executeWithoutResult(status -> em.createNamedQuery(OutboxEvent.MARK_RELAYED)
+                    .setParameter("ids", ids)
+                    .executeUpdate());
+            total += events.size();
+            relayed.addAndGet(events.size());
+            batches.incrementAndGet();
+            lastDelayMillis = Duration.between(events.get(events.size() - 1).getCreatedAt(), Instant.now()).toMillis();
+            if (events.size() < limit)
+                break;
+        }
+        return total;
+    }
+
+    private void deleteAcknowledged(TransactionTemplate tx) {
+        List<Long> acknowledged = stream.takeAcknowledged();
+        for (int from = 0; from < acknowledged.size(); from += batchSize) {
+            List<Long> ids = acknowledged.subList(from, Math.min(from + batchSize, acknowledged.size()));
+            tx.executeWithoutResult(status -> em.createNamedQuery(OutboxEvent.DELETE_BY_IDS)
+                    .setParameter("ids", ids)
+                    .executeUpdate());
+        }
+    }
+
+    /**
+     * Сколько событий в outbox ещё не подтверждено всеми подписчиками (включая опубликованные)
+     * и когда записано самое старое из них
+     */
+    public Pending pending() {
+        Object[] row = new TransactionTemplate(transactionManager).execute(status ->
+                em.createNamedQuery(OutboxEvent.PENDING, Object[].class).getSingleResult());
+        return new Pending((Long) row[0], (Instant) row[1]);
+    }
+
+    public long getRelayedCount() {
+        return relayed.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getLastDelayMillis() {
+        return lastDelayMillis;
+    }
+}
@@ -0,0 +1,193 @@
+package JPA2.services;
+
+import JPA2.config.ConnectionPoolMetrics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Статистика Hibernate и пула соединений в текстовом формате Prometheus (version 0.0.4)
+ */
+@Service
+public class PersistenceMetricsService {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Autowired
+    CacheStatisticsService cacheStatistics;
+
+    /**
+     * Метрики всех пулов: основного и реплики
+     */
+    @Autowired(required = false)
+    List<ConnectionPoolMetrics> poolMetrics = List.of();
+
+    @Autowired(required = false)
+    OutboxRelay outboxRelay;
+
+    @Autowired(required = false)
+    OptimisticRetryTemplate retryTemplate;
+
+    @Autowired(required = false)
+    ChangeEventStream changeEventStream;
+
+    /**
+     * Сколько самых медленных запросов показывать
+     */
+    @Value("${metrics.slowQueries:10}")
+    private int slowQueries;
+
+    public String scrape() {
+        Statistics statistics = cacheStatistics.getStatistics();
+        StringBuilder out = new StringBuilder();
+
+        counter(out, "hibernate_query_executions_total", "Executed HQL/JPQL queries", statistics.getQueryExecutionCount());
+        gauge(out, "hibernate_query_execution_max_seconds", "Slowest query execution time",
+                statistics.getQueryExecutionMaxTime() / 1000.0);
+        counter(out, "hibernate_statements_prepared_total", "Prepared JDBC statements", statistics.getPrepareStatementCount());
+        header(out, "hibernate_query_plan_cache_requests_total", "HQL/JPQL interpretations found in the query plan cache", "counter");
+        sample(out, "hibernate_query_plan_cache_requests_total", "result", "hit", statistics.getQueryPlanCacheHitCount());
+        sample(out, "hibernate_query_plan_cache_requests_total", "result", "miss", statistics.getQueryPlanCacheMissCount());
+
+        header(out, "hibernate_entity_operations_total", "Entity operations", "counter");
+        sample(out, "hibernate_entity_operations_total", "operation", "load", statistics.getEntityLoadCount());
+        sample(out, "hibernate_entity_operations_total", "operation", "fetch", statistics.getEntityFetchCount());
+        sample(out, "hibernate_entity_operations_total", "operation", "insert", statistics.getEntityInsertCount());
+        sample(out, "hibernate_entity_operations_total", "operation", "update", statistics.getEntityUpdateCount());
+        sample(out, "hibernate_entity_operations_total", "operation", "delete", statistics.getEntityDeleteCount());
+
+        header(out, "hibernate_collection_operations_total", "Collection operations", "counter");
+        sample(out, "hibernate_collection_operations_total", "operation", "load", statistics.getCollectionLoadCount());
+        sample(out, "hibernate_collection_operations_total", "operation", "fetch", statistics.getCollectionFetchCount());
+        sample(out, "hibernate_collection_operations_total", "operation", "update", statistics.getCollectionUpdateCount());
+        sample(out, "hibernate_collection_operations_total", "operation", "recreate", statistics.getCollectionRecreateCount());
+        sample(out, "hibernate_collection_operations_total", "operation", "remove", statistics.getCollectionRemoveCount());
+
+        counter(out, "hibernate_flushes_total", "Session flushes", statistics.getFlushCount());
+        counter(out, "hibernate_connections_obtained_total", "JDBC connections obtained by sessions", statistics.getConnectCount());
+        counter(out, "hibernate_sessions_opened_total", "Sessions opened", statistics.getSessionOpenCount());
+        counter(out, "hibernate_transactions_total", "Completed transactions", statistics.getTransactionCount());
+        counter(out, "hibernate_optimistic_failures_total", "Optimistic lock failures", statistics.getOptimisticFailureCount());
+        if (retryTemplate != null) {
+            counter(out, "optimistic_retry_commits_total", "Transactions committed by the optimistic retry template",
+                    retryTemplate.getCommitCount());
+            counter(out, "optimistic_retry_conflicts_total", "Attempts that lost an optimistic lock conflict",
+                    retryTemplate.getConflictCount());
+            counter(out, "optimistic_retry_exhausted_total", "Actions that failed after the last retry",
+                    retryTemplate.getExhaustedCount());
+        }
+
+        header(out, "hibernate_second_level_cache_requests_total", "Second-level cache requests", "counter");
+        sample(out, "hibernate_second_level_cache_requests_total", "result", "hit", statistics.getSecondLevelCacheHitCount());
+        sample(out, "hibernate_second_level_cache_requests_total", "result", "miss", statistics.getSecondLevelCacheMissCount());
+        header(out, "hibernate_query_cache_requests_total", "Query cache requests", "counter");
+        sample(out, "hibernate_query_cache_requests_total", "result", "hit", statistics.getQueryCacheHitCount());
+        sample(out, "hibernate_query_cache_requests_total", "result", "miss", statistics.getQueryCacheMissCount());
+
+        header(out, "hibernate_cache_region_requests_total", "Second-level cache requests per region", "counter");
+        for (Map.Entry<String, CacheStatisticsService.RegionStatistics> region : cacheStatistics.getRegionStatistics().entrySet()) {
+            out.append("hibernate_cache_region_requests_total{region=\"").append(escape(region.getKey()))
+                    .append("\",result=\"hit\"} ").append(region.getValue().hits()).append('\n');
+            out.append("hibernate_cache_region_requests_total{region=\"").append(escape(region.getKey()))
+                    .append("\",result=\"miss\"} ").append(region.getValue().misses()).append('\n');
+        }
+
+        slowestQueries(out, statistics);
+
+        // пул Hikari запускается при первом запросе соединения, до этого у него нет метрик
+        List<ConnectionPoolMetrics> pools = poolMetrics.stream().filter(pool -> pool.getPoolName() != null).toList();
+        header(out, "jdbc_pool_connections_active", "Connections in use", "gauge");
+        for (ConnectionPoolMetrics pool : pools)
+            sample(out, "jdbc_pool_connections_active", "pool", pool.getPoolName(), pool.getActiveConnections());
+        header(out, "jdbc_pool_connections_idle", "Idle connections", "gauge");
+        for (ConnectionPoolMetrics pool : pools)
+            sample(out, "jdbc_pool_connections_idle", "pool", pool.getPoolName(), pool.getIdleConnections());
+        header(out, "jdbc_pool_pending_threads", "Threads waiting for a connection", "gauge");
+        for (ConnectionPoolMetrics pool : pools)
+            sample(out, "jdbc_pool_pending_threads", "pool", pool.getPoolName(), pool.getPendingThreads());
+        header(out, "jdbc_pool_acquires_total", "Connections taken from the pool", "counter");
+        for (ConnectionPoolMetrics pool : pools)
+            sample(out, "jdbc_pool_acquires_total", "pool", pool.getPoolName(), pool.getAcquireCount());
+        header(out, "jdbc_pool_acquire_wait_seconds_total", "Time spent waiting for a connection", "counter");
+        for (ConnectionPoolMetrics pool : pools)
+            sample(out, "jdbc_pool_acquire_wait_seconds_total", "pool", pool.getPoolName(), pool.getTotalWaitMillis() / 1000.0);
+        header(out, "jdbc_pool_timeouts_total", "Connection requests that timed out", "counter");
+        for (ConnectionPoolMetrics pool : pools)
+            sample(out, "jdbc_pool_timeouts_total", "pool", pool.getPoolName(), pool.getTimeoutCount());
+
+        if (outboxRelay != null)
+            outbox(out);
+        return out.toString();
+    }
+
+    private void outbox(StringBuilder out) {
+        OutboxRelay.Pending pending = outboxRelay.pending();
+        counter(out, "outbox_relayed_events_total", "Outbox events published to the change stream", outboxRelay.getRelayedCount());
+        counter(out, "outbox_relay_batches_total", "Outbox batches published to the change stream", outboxRelay.getBatchCount());
+        gauge(out, "outbox_pending_events", "Outbox events not yet acknowledged by every subscriber", pending.events());
+        gauge(out, "outbox_oldest_pending_age_seconds", "Age of the oldest outbox event not yet acknowledged by every subscriber",
+                pending.oldest() == null ? 0 : Duration.between(pending.oldest(), Instant.now()).toMillis() / 1000.0);
+        gauge(out, "outbox_relay_delay_seconds", "Time from the outbox write to publication for the last relayed event",
+                outboxRelay.getLastDelayMillis() / 1000.0);
+        if (changeEventStream == null)
+            return;
+        counter(out, "change_stream_published_total", "Events published to the change stream", changeEventStream.published());
+        gauge(out, "change_stream_remaining_capacity", "Free slots in the change stream buffer", changeEventStream.remainingCapacity());
+        header(out, "change_stream_subscriber_lag_events", "Published events not yet acknowledged by the subscriber", "gauge");
+        for (Map.Entry<String, Long> lag : changeEventStream.lag().entrySet())
+            sample(out, "change_stream_subscriber_lag_events", "subscriber", lag.getKey(), lag.getValue());
+    }
+
+    private void slowestQueries(StringBuilder out, Statistics statistics) {
+        Map<String, QueryStatistics> queries = new HashMap<>();
+        for (String query : statistics.getQueries())
+            queries.put(query, statistics.getQueryStatistics(query));
+        List<String> slowest = new ArrayList<>(queries.keySet());
+        slowest.sort(Comparator.comparingLong((String query) -> queries.get(query).getExecutionMaxTime()).reversed());
+        slowest = slowest.subList(0, Math.min(slowQueries, slowest.size()));
+
+        header(out, "hibernate_slow_query_max_seconds", "Slowest queries by maximum execution time", "gauge");
+        for (String query : slowest) {
+            out.append("hibernate_slow_query_max_seconds{query=\"").append(escape(query)).append("\"} ")
+                    .append(queries.get(query).getExecutionMaxTime() / 1000.0).append('\n');
+        }
+        header(out, "hibernate_slow_query_executions_total", "Executions of the slowest queries", "counter");
+        for (String query : slowest) {
+            out.append("hibernate_slow_query_executions_total{query=\"").append(escape(query)).append("\"} ")
+                    .append(queries.get(query).getExecutionCount()).append('\n');
+        }
+    }
+
+    private static void counter(StringBuilder out, String name, String help, Number value) {
+        header(out, name, help, "counter");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, Number value) {
+        header(out, name, help, "gauge");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String labelValue, Number value) {
+        out.append(name).append('{').append(label).append("=\"").append(escape(String.valueOf(labelValue)))
+                .append("\"} ").append(value).append('\n');
+    }
+
+    static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,35 @@
+package JPA2.services;
+
+import JPA2.models.Department;
+import JPA2.models.Project;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Поиск справочников по имени. Запросы кешируются в кеше запросов,
+ * сами сущности — в кеше второго уровня.
+ */
+@Service
+@Transactional
+public class ReferenceDataService {
+    @PersistenceContext
+    EntityManager em;
+
+    public Department findDepartmentByName(String name) {
+        List<Department> found = em.createNamedQuery(Department.FIND_BY_NAME, Department.class)
+                .setParameter("name", name)
+                .getResultList();
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public Project findProjectByName(String name) {
+        List<Project> found = em.createNamedQuery(Project.FIND_BY_NAME, Project.class)
+                .setParameter("name", name)
+                .getResultList();
+        return found.isEmpty() ? null : found.get(0);
+    }
+}
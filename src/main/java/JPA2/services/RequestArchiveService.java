@@ -0,0 +1,217 @@
+package JPA2.services;
+
+import JPA2.models.Request;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Перенос завершённых запросов (заполнены все три отметки времени) старше maxAgeDays
+ * из таблицы requests в сжатые файлы архива. Каждая пачка из batchSize запросов пишется в свой файл:
+ * сначала во временный, который закрывается и сбрасывается на диск (fsync), затем переименовывается,
+ * и только после этого пачка удаляется из таблицы в своей короткой транзакции. Сбой до удаления
+ * оставляет строки в таблице, а в архиве — либо целый файл, либо брошенный временный; при следующем
+ * запуске эти запросы попадут в архив ещё раз — читатель архива должен быть готов к повтору id.
+ * <p>
+ * Формат файла: GZIP-поток, в нём {@link #MAGIC}, затем записи (true, id, есть ли имя, имя,
+ * convertX, execute, generateResponse в микросекундах от начала эпохи) и false в конце.
+ * Файлы первой версии начинаются с {@link #MAGIC_MILLIS} и хранят время в миллисекундах; они читаются по-прежнему.
+ */
+@Service
+public class RequestArchiveService {
+    static Logger LOGGER = Logger.getLogger(RequestArchiveService.class);
+
+    /**
+     * Текущий формат: время в микросекундах
+     */
+    public static final int MAGIC = 0x4A50_5242;
+    /**
+     * Первый формат: время в миллисекундах
+     */
+    public static final int MAGIC_MILLIS = 0x4A50_5241;
+    public static final String SUFFIX = ".bin.gz";
+    private static final String PARTIAL = ".tmp";
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${archive.dir:${java.io.tmpdir}/jpa2-archive}")
+    private String dir;
+
+    /**
+     * Запросы младше этого возраста остаются в таблице
+     */
+    @Value("${archive.maxAgeDays:30}")
+    private int maxAgeDays;
+
+    /**
+     * Сколько строк удаляется одной транзакцией
+     */
+    @Value("${archive.batchSize:1000}")
+    private int batchSize;
+
+    public Path getDir() {
+        return Paths.get(dir);
+    }
+
+    public void setDir(Path dir) {
+        this.dir = dir.toString();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${archive.intervalMillis:3600000}", initialDelayString = "${archive.intervalMillis:3600000}")
+    public void archiveExpired() throws IOException {
+        archive(Instant.now().minus(maxAgeDays, ChronoUnit.DAYS));
+    }
+
+    /**
+     * Архивирует завершённые запросы с generateResponse раньше cutoff
+     *
+     * @return сколько запросов удалено из таблицы
+     */
+    public int archive(Instant cutoff) throws IOException {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        String prefix = "requests-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        int archived = 0;
+        int files = 0;
+        while (true) {
+            List<Object[]> rows = tx.execute(status -> em.createNamedQuery(Request.COMPLETED_BEFORE, Object[].class)
+                    .setParameter("cutoff", cutoff)
+                    .setMaxResults(batchSize)
+                    .getResultList());
+            if (rows.isEmpty())
+                break;
+            List<Integer> ids = new ArrayList<>(rows.size());
+            for (Object[] row : rows)
+                ids.add((Integer) row[0]);
+            // строки удаляются только после того, как файл целиком попал на диск
+            writeFile(getDir().resolve(prefix + String.format("-%05d", files++) + SUFFIX), rows);
+            archived += tx.execute(status -> em.createNamedQuery(Request.DELETE_BY_IDS)
+                    .setParameter("ids", ids)
+                    .executeUpdate());
+            if (rows.size() < batchSize)
+                break;
+        }
+        if (archived > 0)
+            LOGGER.info("Archived " + archived + " requests to " + files + " files " + prefix + "-*" + SUFFIX);
+        return archived;
+    }
+
+    /**
+     * Пишет пачку во временный файл, сбрасывает его на диск и переименовывает в file:
+     * под именем file виден только полный, читаемый архив
+     */
+    private static void writeFile(Path file, List<Object[]> rows) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path partial = file.resolveSibling(file.getFileName() + PARTIAL);
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip));
+            out.writeInt(MAGIC);
+            for (Object[] row : rows)
+                write(out, row);
+            out.writeBoolean(false);
+            out.flush();
+            gzip.finish();
+            channel.force(true);
+        }
+        Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.getParent());
+    }
+
+    /**
+     * Сбрасывает на диск запись каталога, чтобы переименование пережило сбой. Не все системы
+     * позволяют открыть каталог как файл; там переименование остаётся на совести файловой системы
+     */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot sync directory " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Файлы архива в порядке создания
+     */
+    public List<Path> archives() throws IOException {
+        if (!Files.isDirectory(getDir()))
+            return List.of();
+        try (Stream<Path> files = Files.list(getDir())) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    /**
+     * Читает файл архива, передавая каждый запрос в consumer
+     *
+     * @return число прочитанных запросов
+     */
+    public long read(Path file, Consumer<Request> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            int magic = in.readInt();
+            if (magic != MAGIC && magic != MAGIC_MILLIS)
+                throw new IOException("Not a request archive: " + file);
+            ChronoUnit unit = magic == MAGIC ? ChronoUnit.MICROS : ChronoUnit.MILLIS;
+            long count = 0;
+            while (in.readBoolean()) {
+                Request request = new Request();
+                request.setId(in.readInt());
+                request.setName(in.readBoolean() ? in.readUTF() : null);
+                request.setConvertXInstant(instant(in.readLong(), unit));
+                request.setExecuteInstant(instant(in.readLong(), unit));
+                request.setGenerateResponseInstant(instant(in.readLong(), unit));
+                consumer.accept(request);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static void write(DataOutputStream out, Object[] row) throws IOException {
+        out.writeBoolean(true);
+        out.writeInt((Integer) row[0]);
+        out.writeBoolean(row[1] != null);
+        if (row[1] != null)
+            out.writeUTF((String) row[1]);
+        for (int i = 2; i < 5; i++)
+            out.writeLong(ChronoUnit.MICROS.between(Instant.EPOCH, (Instant) row[i]));
+    }
+
+    private static Instant instant(long value, ChronoUnit unit) {
+        return Instant.EPOCH.plus(value, unit);
+    }
+}
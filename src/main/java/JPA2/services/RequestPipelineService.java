@@ -0,0 +1,292 @@
+package JPA2.services;
+
+import JPA2.models.Request;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Конвейер обработки запросов convertX → execute → generateResponse.
+ * Каждый этап выполняется в своём пуле потоков с ограниченной очередью: когда очередь заполнена,
+ * задачу выполняет поток, который её отправил (CallerRunsPolicy), так что источник запросов
+ * замедляется вместо неограниченного роста очередей.
+ * Отметки времени этапов копятся в памяти, а готовые запросы пишет в базу один поток пачками
+ * по batchSize — по одному INSERT на запрос через пакетный JDBC вместо UPDATE на каждый этап.
+ * Ошибка конвертации отменяет запрос (в базу он не попадает), ошибка выполнения оставляет execute = null.
+ * Запросы, которые не успели записаться до остановки конвейера, завершаются исключением, а не зависают.
+ */
+@Service
+public class RequestPipelineService implements InitializingBean, DisposableBean {
+    static Logger LOGGER = Logger.getLogger(RequestPipelineService.class);
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private RequestStages stages = new RequestStages() {
+    };
+
+    /**
+     * Потоков на каждый этап
+     */
+    @Value("${pipeline.threads:4}")
+    private int threads;
+
+    /**
+     * Ёмкость очереди каждого этапа и очереди записи
+     */
+    @Value("${pipeline.queueCapacity:1000}")
+    private int queueCapacity;
+
+    @Value("${hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    /**
+     * Сколько писатель ждёт неполную пачку, мс
+     */
+    @Value("${pipeline.flushIntervalMillis:20}")
+    private long flushIntervalMillis;
+
+    /**
+     * Сколько при остановке ждать каждый этап и писателя, мс
+     */
+    @Value("${pipeline.shutdownTimeoutMillis:30000}")
+    private long shutdownTimeoutMillis;
+
+    private ThreadPoolExecutor convertStage;
+    private ThreadPoolExecutor executeStage;
+    private ThreadPoolExecutor responseStage;
+    private BlockingQueue<Pending> writeQueue;
+    private Thread writer;
+    private volatile boolean running;
+    /**
+     * Писатель остановлен: новые записи в очередь уже никто не заберёт
+     */
+    private volatile boolean closed;
+
+    private record Pending(Request request, CompletableFuture<Request> result) {
+    }
+
+    /**
+     * Задача этапа вместе с результатом запроса, чтобы отклонённую задачу можно было завершить ошибкой
+     */
+    private record StageTask(Runnable work, CompletableFuture<Request> result) implements Runnable {
+        @Override
+        public void run() {
+            work.run();
+        }
+    }
+
+    /**
+     * Пока пул работает, полную очередь разгружает отправивший поток; после shutdown задача
+     * не выполнится, и её запрос завершается исключением (CallerRunsPolicy молча выбросил бы её)
+     */
+    private static final RejectedExecutionHandler CALLER_RUNS_OR_FAIL = (task, executor) -> {
+        if (!executor.isShutdown())
+            task.run();
+        else
+            stopped((StageTask) task);
+    };
+
+    private static void stopped(StageTask task) {
+        task.result().completeExceptionally(new RejectedExecutionException("Конвейер запросов остановлен"));
+    }
+
+    @Autowired(required = false)
+    public void setStages(RequestStages stages) {
+        this.stages = stages;
+    }
+
+    public RequestStages getStages() {
+        return stages;
+    }
+
+    public void setShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        convertStage = stage("convert");
+        executeStage = stage("execute");
+        responseStage = stage("response");
+        writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        closed = false;
+        writer = new Thread(this::writeLoop, "request-pipeline-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private ThreadPoolExecutor stage(String name) {
+        ThreadFactory factory = new ThreadFactory() {
+            private int count;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "request-pipeline-" + name + "-" + ++count);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, CALLER_RUNS_OR_FAIL);
+    }
+
+    private static void dispatch(ThreadPoolExecutor stage, CompletableFuture<Request> result, Runnable work) {
+        stage.execute(new StageTask(work, result));
+    }
+
+    /**
+     * Ставит запрос в конвейер. Результат завершается после записи запроса в базу
+     * (или исключением, если упала конвертация либо запись).
+     */
+    public CompletableFuture<Request> submit(String incomeRequest) {
+        if (convertStage.isShutdown())
+            throw new IllegalStateException("Конвейер запросов остановлен");
+        CompletableFuture<Request> result = new CompletableFuture<>();
+        dispatch(convertStage, result, () -> convert(incomeRequest, result));
+        return result;
+    }
+
+    /**
+     * Обрабатывает все запросы и ждёт их записи
+     */
+    public List<Request> process(List<String> incomeRequests) {
+        List<CompletableFuture<Request>> futures = new ArrayList<>(incomeRequests.size());
+        for (String incomeRequest : incomeRequests)
+            futures.add(submit(incomeRequest));
+        List<Request> result = new ArrayList<>(futures.size());
+        for (CompletableFuture<Request> future : futures)
+            result.add(future.join());
+        return result;
+    }
+
+    private void convert(String incomeRequest, CompletableFuture<Request> result) {
+        Request request = new Request();
+        request.setName(incomeRequest);
+        try {
+            stages.convert(request, incomeRequest);
+        } catch (RuntimeException ex) {
+            LOGGER.debug("Ошибка на этапе конвертирования: " + ex.getMessage());
+            result.completeExceptionally(ex);
+            return;
+        }
+        request.setConvertXInstant(Instant.now());
+        dispatch(executeStage, result, () -> execute(request, result));
+    }
+
+    private void execute(Request request, CompletableFuture<Request> result) {
+        try {
+            stages.execute(request);
+            request.setExecuteInstant(Instant.now());
+        } catch (RuntimeException ex) {
+            LOGGER.debug("Ошибка на этапе выполнения: " + ex.getMessage());
+        }
+        dispatch(responseStage, result, () -> generateResponse(request, result));
+    }
+
+    private void generateResponse(Request request, CompletableFuture<Request> result) {
+        try {
+            stages.generateResponse(request);
+            request.setGenerateResponseInstant(Instant.now());
+            Pending pending = new Pending(request, result);
+            writeQueue.put(pending);
+            // писатель мог остановиться до того, как запрос попал в очередь; закрытие выставляется
+            // до последней разгрузки очереди, поэтому запрос забирает ровно одна сторона
+            if (closed && writeQueue.remove(pending))
+                writerStopped(pending);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(ex);
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    private void writeLoop() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !writeQueue.isEmpty()) {
+            try {
+                Pending first = writeQueue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                writeQueue.drainTo(batch, batchSize - 1);
+                write(tx, batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                closed = true;
+                failQueued();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(TransactionTemplate tx, List<Pending> batch) {
+        try {
+            tx.executeWithoutResult(status -> {
+                for (Pending pending : batch)
+                    em.persist(pending.request());
+            });
+        } catch (RuntimeException ex) {
+            LOGGER.error("Не удалось записать " + batch.size() + " запросов", ex);
+            for (Pending pending : batch)
+                pending.result().completeExceptionally(ex);
+            return;
+        }
+        for (Pending pending : batch)
+            pending.result().complete(pending.request());
+    }
+
+    private static void writerStopped(Pending pending) {
+        pending.result().completeExceptionally(new CancellationException("Запись запросов остановлена"));
+    }
+
+    private void failQueued() {
+        List<Pending> rest = new ArrayList<>();
+        writeQueue.drainTo(rest);
+        for (Pending pending : rest)
+            writerStopped(pending);
+    }
+
+    /**
+     * Дожидается обработки уже принятых запросов и останавливает потоки. Запросы, не обработанные
+     * за отведённое время, завершаются исключением
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        for (ThreadPoolExecutor stage : List.of(convertStage, executeStage, responseStage)) {
+            stage.shutdown();
+            if (!stage.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                for (Runnable task : stage.shutdownNow())
+                    stopped((StageTask) task);
+            }
+        }
+        running = false;
+        writer.join(shutdownTimeoutMillis);
+        if (writer.isAlive()) {
+            writer.interrupt();
+            writer.join(shutdownTimeoutMillis);
+        }
+        closed = true;
+        failQueued();
+    }
+}
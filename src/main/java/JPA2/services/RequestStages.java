@@ -0,0 +1,19 @@
+package JPA2.services;
+
+import JPA2.models.Request;
+
+/**
+ * Прикладная логика этапов обработки запроса; по умолчанию этапы ничего не делают.
+ * Исключение из {@link #convert} отменяет запрос целиком, из {@link #execute} — только отметку execute.
+ */
+public interface RequestStages {
+
+    default void convert(Request request, String incomeRequest) {
+    }
+
+    default void execute(Request request) {
+    }
+
+    default void generateResponse(Request request) {
+    }
+}
@@ -0,0 +1,93 @@
+package JPA2.services;
+
+import JPA2.config.ShardedPersistence;
+import JPA2.models.Department;
+import JPA2.models.Employee;
+import JPA2.models.Project;
+import JPA2.projections.PayrollLine;
+
+import jakarta.persistence.EntityNotFoundException;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Сотрудники, разложенные по шардам по id отдела. Отдел хранится в своём шарде,
+ * проекты как справочник копируются во все шарды. Объявлен в sharding-context.xml.
+ * <p>
+ * Изменения в шардах не публикуются в {@link ChangeEventStream}: outbox в шардах выключен,
+ * потому что {@link OutboxRelay} разбирает outbox только основной базы.
+ */
+public class ShardedEmployeeService {
+    private final ShardedPersistence shards;
+
+    public ShardedEmployeeService(ShardedPersistence shards) {
+        this.shards = shards;
+    }
+
+    public void saveDepartment(Department department) {
+        shards.inShard(department.getId(), em -> em.merge(department));
+    }
+
+    public void saveProject(Project project) {
+        shards.forEachShard(em -> em.merge(project));
+    }
+
+    /**
+     * Сохраняет нового сотрудника в шард его отдела; отдел и проекты уже должны быть сохранены
+     */
+    public Employee save(Employee employee) {
+        if (employee.getDepartment() == null)
+            throw new IllegalArgumentException("Employee " + employee.getName() + " has no department to shard by");
+        return shards.inShard(employee.getDepartment().getId(), em -> {
+            em.persist(employee);
+            return employee;
+        });
+    }
+
+    /**
+     * Переводит сотрудника в другой отдел. Отдел из другого шарда отклоняется: перенос строк сотрудника,
+     * телефонов и связей с проектами затронул бы две базы без общей транзакции, и сбой между ними
+     * оставил бы сотрудника в обоих шардах или ни в одном
+     *
+     * @throws IllegalArgumentException если новый отдел лежит в другом шарде
+     */
+    public Employee changeDepartment(int departmentId, int id, int newDepartmentId) {
+        if (shards.shardOf(departmentId) != shards.shardOf(newDepartmentId))
+            throw new IllegalArgumentException("Employee " + id + " cannot move from department " + departmentId
+                    + " to department " + newDepartmentId + " in another shard");
+        return shards.inShard(departmentId, em -> {
+            Employee employee = em.find(Employee.class, id);
+            if (employee == null || employee.getDepartment() == null || employee.getDepartment().getId() != departmentId)
+                throw new EntityNotFoundException("No employee " + id + " in department " + departmentId);
+            Department department = em.find(Department.class, newDepartmentId);
+            if (department == null)
+                throw new EntityNotFoundException("No department " + newDepartmentId);
+            employee.setDepartment(department);
+            return employee;
+        });
+    }
+
+    public Employee find(int departmentId, int id) {
+        return shards.readShard(departmentId, em -> em.find(Employee.class, id));
+    }
+
+    public List<PayrollLine> payrollByDepartment(int departmentId) {
+        return shards.readShard(departmentId, em -> em.createNamedQuery(Employee.PAYROLL_BY_DEPARTMENT, PayrollLine.class)
+                .setParameter("department", departmentId)
+                .getResultList());
+    }
+
+    /**
+     * Ведомость по всем шардам в порядке id сотрудника
+     */
+    public List<PayrollLine> payroll() {
+        return shards.scatterGather(em -> em.createNamedQuery(Employee.PAYROLL, PayrollLine.class).getResultList(),
+                Comparator.comparingInt(PayrollLine::id));
+    }
+
+    public long totalSalary() {
+        return shards.scatter(em -> em.createNamedQuery(Employee.TOTAL_SALARY, Long.class).getSingleResult())
+                .stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,54 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Employee;
+import JPA2.services.EmployeeBulkService;
+import JPA2.services.EmployeeFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Повышение зарплаты всем {@link #rows} сотрудникам: загрузка и setSalary по одному
+ * (пакетные UPDATE по hibernate.jdbc.batch_size) против одного UPDATE из {@link EmployeeBulkService}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class BulkUpdateBenchmark {
+
+    @Param("100000")
+    public int rows;
+
+    private EmployeeBulkService bulkService;
+
+    @Setup
+    public void setUp(PersistenceState state) {
+        bulkService = state.context.getBean(EmployeeBulkService.class);
+        state.tx.executeWithoutResult(status -> state.em.createNativeQuery(
+                "insert into Employee (id, name, salary, department_id) "
+                        + "select x, 'Employee ' || x, 1000, 1 + mod(x, " + PersistenceState.DEPARTMENTS + ") "
+                        + "from system_range(1, " + rows + ")")
+                .executeUpdate());
+    }
+
+    @Benchmark
+    public int rowByRow(PersistenceState state) {
+        return state.tx.execute(status -> {
+            int updated = 0;
+            for (Employee emp : state.em.createQuery("select e from Employee e join fetch e.department", Employee.class)
+                    .getResultList()) {
+                emp.setSalary(emp.getSalary() + 1);
+                updated++;
+            }
+            return updated;
+        });
+    }
+
+    @Benchmark
+    public int bulkUpdate() {
+        return bulkService.raiseSalary(EmployeeFilter.all(), 1);
+    }
+}
@@ -0,0 +1,92 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Employee;
+import JPA2.services.OptimisticRetryTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import jakarta.persistence.LockModeType;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Одновременные повышения зарплаты у hot сотрудников: чем их меньше, тем чаще потоки меняют
+ * одну строку. optimistic — проверка версии и повтор через {@link OptimisticRetryTemplate},
+ * pessimistic — select ... for update, остальные транзакции ждут блокировку строки.
+ * Кроме числа операций, показывает частоту фиксаций, повторов и отказов после последней попытки.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+
+    @Param({"1", "16", "256"})
+    public int hot;
+
+    @Param({"optimistic", "pessimistic"})
+    public String lock;
+
+    private final PersistenceState state = new PersistenceState();
+    private OptimisticRetryTemplate retryTemplate;
+    private int[] ids;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long commits;
+        public long retries;
+        public long failures;
+        long attempts;
+    }
+
+    @Setup
+    public void setUp() {
+        state.start("contention");
+        retryTemplate = state.context.getBean(OptimisticRetryTemplate.class);
+        ids = state.tx.execute(status -> {
+            int[] ids = new int[hot];
+            for (int i = 0; i < hot; i++) {
+                Employee emp = new Employee();
+                emp.setName("Hot " + i);
+                emp.setSalary(1000);
+                state.em.persist(emp);
+                ids[i] = emp.getId();
+            }
+            return ids;
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        state.tearDown();
+    }
+
+    @Benchmark
+    public long raiseSalary(Outcomes outcomes) {
+        int id = ids[ThreadLocalRandom.current().nextInt(hot)];
+        outcomes.attempts = 0;
+        try {
+            long salary = "optimistic".equals(lock)
+                    ? retryTemplate.execute(status -> raise(id, LockModeType.NONE, outcomes))
+                    : state.tx.execute(status -> raise(id, LockModeType.PESSIMISTIC_WRITE, outcomes));
+            outcomes.commits++;
+            return salary;
+        } catch (OptimisticLockingFailureException e) {
+            outcomes.failures++;
+            return -1;
+        } finally {
+            outcomes.retries += outcomes.attempts - 1;
+        }
+    }
+
+    private long raise(int id, LockModeType lockMode, Outcomes outcomes) {
+        outcomes.attempts++;
+        Employee emp = state.em.find(Employee.class, id, lockMode);
+        emp.setSalary(emp.getSalary() + 1);
+        return emp.getSalary();
+    }
+}
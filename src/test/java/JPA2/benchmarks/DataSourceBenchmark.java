@@ -0,0 +1,82 @@
+package JPA2.benchmarks;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Короткая транзакция (взять соединение, выполнить SELECT по ключу, закоммитить)
+ * через DriverManagerDataSource и через пул HikariCP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class DataSourceBenchmark {
+    private static final String URL = "jdbc:h2:mem:dsbench;DB_CLOSE_DELAY=-1";
+
+    @Param({"driverManager", "hikari"})
+    public String dataSource;
+
+    private DataSource ds;
+
+    @Setup
+    public void setUp() throws SQLException {
+        if ("hikari".equals(dataSource)) {
+            HikariDataSource hikari = new HikariDataSource();
+            hikari.setJdbcUrl(URL);
+            hikari.setUsername("sa");
+            hikari.setMaximumPoolSize(8);
+            hikari.setAutoCommit(false);
+            ds = hikari;
+        } else {
+            ds = new DriverManagerDataSource(URL, "sa", "");
+        }
+        try (Connection connection = ds.getConnection()) {
+            connection.createStatement().execute(
+                    "CREATE TABLE IF NOT EXISTS EMPLOYEE(ID INT PRIMARY KEY, NAME VARCHAR(255))");
+            connection.createStatement().execute("MERGE INTO EMPLOYEE KEY(ID) VALUES (1, 'Denis')");
+            if (!connection.getAutoCommit())
+                connection.commit();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (ds instanceof HikariDataSource)
+            ((HikariDataSource) ds).close();
+    }
+
+    @Benchmark
+    public String shortTransaction() throws SQLException {
+        try (Connection connection = ds.getConnection()) {
+            connection.setAutoCommit(false);
+            String name;
+            try (PreparedStatement statement = connection.prepareStatement("SELECT NAME FROM EMPLOYEE WHERE ID = ?")) {
+                statement.setInt(1, 1);
+                try (ResultSet rs = statement.executeQuery()) {
+                    name = rs.next() ? rs.getString(1) : null;
+                }
+            }
+            connection.commit();
+            return name;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DataSourceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,59 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Employee;
+import org.openjdk.jmh.annotations.*;
+
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * flush() при {@link #managed} загруженных сотрудниках, из которых изменён один.
+ * Без байткод-улучшения Hibernate сравнивает со снимком каждое поле каждой сущности,
+ * с улучшением — берёт список изменённых полей у самой сущности. Классы надо пересобрать
+ * (clean), а результаты положить вне target:
+ * <pre>
+ * mvn clean -P benchmarks verify -DskipTests -Djmh.include=FlushBenchmark -Djmh.result=/tmp/flush-enhanced.json
+ * mvn clean -P benchmarks verify -DskipTests -Djmh.include=FlushBenchmark -Djmh.result=/tmp/flush-plain.json -DskipEnhance
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlushBenchmark {
+
+    @Param({"1000", "10000"})
+    public int managed;
+
+    private EntityManager em;
+    private List<Employee> employees;
+
+    @Setup
+    public void setUp(PersistenceState state) {
+        state.tx.executeWithoutResult(status -> state.em.createNativeQuery(
+                "insert into Employee (id, name, salary, department_id) "
+                        + "select x, 'Employee ' || x, 1000, 1 + mod(x, " + PersistenceState.DEPARTMENTS + ") "
+                        + "from system_range(1, " + managed + ")")
+                .executeUpdate());
+        em = state.emf.createEntityManager();
+        em.getTransaction().begin();
+        employees = em.createQuery("select e from Employee e join fetch e.department", Employee.class).getResultList();
+    }
+
+    @Benchmark
+    public void flushOneChange() {
+        Employee emp = employees.get(ThreadLocalRandom.current().nextInt(employees.size()));
+        emp.setSalary(emp.getSalary() + 1);
+        em.flush();
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+}
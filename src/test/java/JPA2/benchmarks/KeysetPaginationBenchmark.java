@@ -0,0 +1,84 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Employee;
+import JPA2.models.EmployeeFetchPlan;
+import JPA2.models.EmployeeOrder;
+import JPA2.services.KeysetPaginationService;
+import org.hibernate.jpa.SpecHints;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Страница из {@link #PAGE_SIZE} сотрудников на глубине depth страниц: OFFSET против keyset.
+ * Таблица из rows строк заполняется одним INSERT ... SELECT; время OFFSET растёт с глубиной,
+ * время keyset — нет. Каждый вызов берёт одну из {@link #PAGES} соседних страниц, иначе H2
+ * вернула бы закешированный результат повторённого запроса.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class KeysetPaginationBenchmark {
+    public static final int PAGE_SIZE = 100;
+    public static final int PAGES = 16;
+
+    @Param("2000000")
+    public int rows;
+
+    @Param({"0", "1000", "10000"})
+    public int depth;
+
+    @Param({"ID", "START_DATE", "DEPARTMENT"})
+    public EmployeeOrder order;
+
+    private KeysetPaginationService paginationService;
+    private final String[] tokens = new String[PAGES];
+    private int page;
+
+    @Setup
+    public void setUp(PersistenceState state) {
+        paginationService = state.context.getBean(KeysetPaginationService.class);
+        state.tx.executeWithoutResult(status -> state.em.createNativeQuery(
+                "insert into Employee (id, name, salary, S_DATE, department_id) "
+                        + "select x, 'Employee ' || x, 1000 + mod(x, 5000), "
+                        + "dateadd('DAY', mod(x * 7919, 3650), date '2000-01-01'), 1 + mod(x, " + PersistenceState.DEPARTMENTS + ") "
+                        + "from system_range(1, " + rows + ")")
+                .executeUpdate());
+        for (int i = 0; i < PAGES; i++) {
+            int offset = (depth + i) * PAGE_SIZE;
+            if (offset > 0) {
+                Employee last = state.tx.execute(status -> offsetQuery(state, offset - 1, 1).get(0));
+                tokens[i] = paginationService.employeeToken(order, last);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Employee> offsetPage(PersistenceState state) {
+        int offset = (depth + nextPage()) * PAGE_SIZE;
+        return state.tx.execute(status -> offsetQuery(state, offset, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<Employee> keysetPage() {
+        return paginationService.employees(order, tokens[nextPage()], PAGE_SIZE).items();
+    }
+
+    private int nextPage() {
+        page = (page + 1) % PAGES;
+        return page;
+    }
+
+    private List<Employee> offsetQuery(PersistenceState state, int offset, int limit) {
+        String orderBy = order.getColumn() == null ? "e.id" : order.getColumn() + " nulls first, e.id";
+        return state.em.createQuery("select e from Employee e order by " + orderBy, Employee.class)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, state.em.getEntityGraph(EmployeeFetchPlan.SUMMARY.getGraphName()))
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
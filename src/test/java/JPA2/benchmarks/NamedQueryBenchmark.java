@@ -0,0 +1,58 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Employee;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск сотрудника по имени: именованный запрос из каталога, тот же JPQL строкой (разбор берётся
+ * из кэша планов по тексту запроса) и JPQL с подставленным в текст значением — каждый текст новый,
+ * поэтому каждый вызов разбирает HQL и строит SQL заново.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NamedQueryBenchmark {
+    public static final int EMPLOYEES = 10_000;
+
+    @Setup
+    public void setUp(PersistenceState state) {
+        state.tx.executeWithoutResult(status -> state.em.createNativeQuery(
+                "insert into Employee (id, name, salary, department_id) "
+                        + "select x, 'Employee ' || x, 1000, 1 + mod(x, " + PersistenceState.DEPARTMENTS + ") "
+                        + "from system_range(1, " + EMPLOYEES + ")")
+                .executeUpdate());
+    }
+
+    @Benchmark
+    public List<Employee> named(PersistenceState state) {
+        return state.tx.execute(status -> state.em.createNamedQuery(Employee.FIND_BY_NAME, Employee.class)
+                .setParameter("name", name())
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Employee> adHoc(PersistenceState state) {
+        return state.tx.execute(status -> state.em.createQuery(
+                        "select e from Employee e where e.name = :name order by e.id", Employee.class)
+                .setParameter("name", name())
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Employee> adHocLiteral(PersistenceState state) {
+        return state.tx.execute(status -> state.em.createQuery(
+                        "select e from Employee e where e.name = '" + name() + "' order by e.id", Employee.class)
+                .getResultList());
+    }
+
+    private static String name() {
+        return "Employee " + (1 + ThreadLocalRandom.current().nextInt(EMPLOYEES));
+    }
+}
@@ -0,0 +1,71 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Employee;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена outbox для транзакции: создание и изменение зарплаты у BATCH сотрудников
+ * с записью событий (outbox=true) и без неё. События одной транзакции вставляются одним JDBC batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 8, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutboxBenchmark {
+    public static final int BATCH = 100;
+
+    @Param({"true", "false"})
+    public boolean outbox;
+
+    private final PersistenceState state = new PersistenceState();
+    private List<Integer> ids;
+
+    @Setup
+    public void setUp() {
+        // настройка читается при создании SessionFactory
+        System.setProperty("outbox.enabled", String.valueOf(outbox));
+        state.start("outbox");
+        ids = insert();
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearOutbox() {
+        state.tx.executeWithoutResult(status -> state.em.createQuery("delete from OutboxEvent").executeUpdate());
+    }
+
+    @TearDown
+    public void tearDown() {
+        state.tearDown();
+    }
+
+    @Benchmark
+    public List<Integer> insert() {
+        return state.tx.execute(status -> {
+            Employee[] employees = new Employee[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                employees[i] = new Employee();
+                employees[i].setName("Outbox " + i);
+                employees[i].setSalary(1000);
+                state.em.persist(employees[i]);
+            }
+            state.em.flush();
+            return Arrays.stream(employees).map(Employee::getId).toList();
+        });
+    }
+
+    @Benchmark
+    public void update() {
+        state.tx.executeWithoutResult(status -> {
+            for (Integer id : ids) {
+                Employee employee = state.em.find(Employee.class, id);
+                employee.setSalary(employee.getSalary() + 1);
+            }
+        });
+    }
+}
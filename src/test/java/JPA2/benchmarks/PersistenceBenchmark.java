@@ -0,0 +1,109 @@
+package JPA2.benchmarks;
+
+import JPA2.models.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути персистентности: сохранение и чтение полного графа Employee,
+ * JPQL-запрос по отделу и изменение связи ManyToMany Employee.projects.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    private static final int EMPLOYEES = 2_000;
+
+    private int[] employeeIds;
+
+    @Setup
+    public void setUp(PersistenceState state) {
+        employeeIds = new int[EMPLOYEES];
+        state.tx.executeWithoutResult(status -> {
+            for (int i = 0; i < EMPLOYEES; i++) {
+                Employee emp = newEmployee(state, i);
+                state.em.persist(emp.getParkingSpace());
+                state.em.persist(emp);
+                employeeIds[i] = emp.getId();
+            }
+        });
+    }
+
+    @Benchmark
+    public int persistEmployeeGraph(PersistenceState state) {
+        return state.tx.execute(status -> {
+            Employee emp = newEmployee(state, ThreadLocalRandom.current().nextInt(EMPLOYEES));
+            state.em.persist(emp.getParkingSpace());
+            state.em.persist(emp);
+            return emp.getId();
+        });
+    }
+
+    @Benchmark
+    public void findEmployeeGraph(PersistenceState state, Blackhole bh) {
+        int id = employeeIds[ThreadLocalRandom.current().nextInt(EMPLOYEES)];
+        state.tx.executeWithoutResult(status -> {
+            Employee emp = state.em.find(Employee.class, id);
+            bh.consume(emp.getDepartment().getName());
+            bh.consume(emp.getParkingSpace().getLot());
+            bh.consume(emp.getProjects().size());
+            bh.consume(emp.getPhoneNumbers().size());
+            bh.consume(emp.getAddress().getCity());
+        });
+    }
+
+    @Benchmark
+    public List<Employee> queryByDepartment(PersistenceState state) {
+        int department = 1 + ThreadLocalRandom.current().nextInt(PersistenceState.DEPARTMENTS);
+        return state.tx.execute(status -> state.em
+                .createQuery("select e from Employee e where e.department.id = :department", Employee.class)
+                .setParameter("department", department)
+                .getResultList());
+    }
+
+    @Benchmark
+    public void updateProjects(PersistenceState state) {
+        int id = employeeIds[ThreadLocalRandom.current().nextInt(EMPLOYEES)];
+        int project = 1 + ThreadLocalRandom.current().nextInt(PersistenceState.PROJECTS);
+        state.tx.executeWithoutResult(status -> {
+            Employee emp = state.em.find(Employee.class, id);
+            Collection<Project> projects = emp.getProjects();
+            if (!projects.removeIf(p -> p.getId() == project))
+                projects.add(state.em.getReference(Project.class, project));
+        });
+    }
+
+    static Employee newEmployee(PersistenceState state, int i) {
+        ParkingSpace parking = new ParkingSpace();
+        parking.setId(state.parkingSpaces.incrementAndGet());
+        parking.setLot(i % 10);
+        parking.setLocation("Building " + (char) ('A' + i % 5));
+
+        Employee emp = new Employee();
+        emp.setName("Employee " + i);
+        emp.setSalary(1000 + i);
+        emp.setType(i % 2 == 0 ? EmployeeType.ENUM1 : EmployeeType.TEST1);
+        emp.setDobLocalDate(LocalDate.of(1980 + i % 20, 1 + i % 12, 1 + i % 28));
+        emp.setStartLocalDate(LocalDate.now());
+        emp.setDepartment(state.em.getReference(Department.class, 1 + i % PersistenceState.DEPARTMENTS));
+        emp.setParkingSpace(parking);
+        Set<Project> projects = new HashSet<>();
+        for (int p = 0; p < 3; p++)
+            projects.add(state.em.getReference(Project.class, 1 + (i + p) % PersistenceState.PROJECTS));
+        emp.setProjects(projects);
+        emp.setAddress(new Address());
+        Map<String, String> phones = new HashMap<>();
+        phones.put("Домашний", "5113195");
+        phones.put("Рабочий", "5113196");
+        emp.setPhoneNumbers(phones);
+        return emp;
+    }
+}
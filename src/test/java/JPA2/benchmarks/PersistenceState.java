@@ -0,0 +1,71 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Department;
+import JPA2.models.Project;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spring-контекст из test-context.xml над отдельной встроенной базой H2
+ * и справочники, на которые ссылаются сотрудники в бенчмарках.
+ */
+@State(Scope.Benchmark)
+public class PersistenceState {
+    public static final int DEPARTMENTS = 10;
+    public static final int PROJECTS = 20;
+
+    public ClassPathXmlApplicationContext context;
+    public EntityManagerFactory emf;
+    public TransactionTemplate tx;
+    /**
+     * Общий EntityManager, привязанный к текущей транзакции
+     */
+    public EntityManager em;
+    /**
+     * Номера мест на парковке: у каждого сотрудника своё
+     */
+    public final AtomicInteger parkingSpaces = new AtomicInteger(1_000_000);
+
+    @Setup
+    public void setUp() {
+        start("bench");
+    }
+
+    public void start(String database) {
+        System.setProperty("jdbc.url", "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=LEGACY");
+        System.setProperty("jpa.showSql", "false");
+        context = new ClassPathXmlApplicationContext("classpath:/test-context.xml");
+        emf = context.getBean(EntityManagerFactory.class);
+        em = SharedEntityManagerCreator.createSharedEntityManager(emf);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.executeWithoutResult(status -> {
+            for (int i = 1; i <= DEPARTMENTS; i++) {
+                Department dept = new Department();
+                dept.setId(i);
+                dept.setName("Department " + i);
+                em.persist(dept);
+            }
+            for (int i = 1; i <= PROJECTS; i++) {
+                Project project = new Project();
+                project.setId(i);
+                project.setName("Project " + i);
+                em.persist(project);
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+}
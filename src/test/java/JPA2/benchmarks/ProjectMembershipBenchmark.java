@@ -0,0 +1,64 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Employee;
+import JPA2.models.Project;
+import org.openjdk.jmh.annotations.*;
+
+import jakarta.persistence.EntityManager;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Добавление и удаление одного проекта у сотрудника, состоящего в {@link #memberships} проектах.
+ * Для множества Hibernate пишет одну строку таблицы связи; для bag (Collection без индекса)
+ * удалял все строки сотрудника и вставлял их заново, так что время росло с числом проектов.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectMembershipBenchmark {
+    private static final int EMPLOYEE = 1;
+    private static final int FIRST_PROJECT = 1000;
+
+    @Param({"10", "100", "1000"})
+    public int memberships;
+
+    private EntityManager em;
+    private Set<Project> projects;
+    private Project spare;
+
+    @Setup
+    public void setUp(PersistenceState state) {
+        state.tx.executeWithoutResult(status -> {
+            state.em.createNativeQuery("insert into Project (id, name) select x, 'Project ' || x "
+                            + "from system_range(" + FIRST_PROJECT + ", " + (FIRST_PROJECT + memberships) + ")")
+                    .executeUpdate();
+            state.em.createNativeQuery("insert into Employee (id, name, salary) values (" + EMPLOYEE + ", 'Member', 1000)")
+                    .executeUpdate();
+            state.em.createNativeQuery("insert into Employee_Project (employees_id, projects_id) select " + EMPLOYEE + ", x "
+                            + "from system_range(" + FIRST_PROJECT + ", " + (FIRST_PROJECT + memberships - 1) + ")")
+                    .executeUpdate();
+        });
+        em = state.emf.createEntityManager();
+        em.getTransaction().begin();
+        projects = em.find(Employee.class, EMPLOYEE).getProjects();
+        projects.size();
+        spare = em.find(Project.class, FIRST_PROJECT + memberships);
+    }
+
+    @Benchmark
+    public void toggleOneProject() {
+        if (!projects.remove(spare))
+            projects.add(spare);
+        em.flush();
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+}
@@ -0,0 +1,51 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Employee;
+import JPA2.projections.PayrollLine;
+import JPA2.services.EmployeeProjectionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение {@link #rows} сотрудников с названием отдела: сущностями (с join fetch отдела,
+ * в транзакции с flush и проверкой изменений) против records из конструкторного выражения.
+ * Выделение памяти на операцию — в колонке gc.alloc.rate.norm (профиль benchmarks запускает JMH с -prof gc).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    @Param("100000")
+    public int rows;
+
+    private EmployeeProjectionService projectionService;
+
+    @Setup
+    public void setUp(PersistenceState state) {
+        projectionService = state.context.getBean(EmployeeProjectionService.class);
+        state.tx.executeWithoutResult(status -> state.em.createNativeQuery(
+                "insert into Employee (id, name, salary, type, S_DATE, department_id, street, city, state, ZIP_CODE) "
+                        + "select x, 'Employee ' || x, 1000 + mod(x, 5000), case mod(x, 2) when 0 then 'ENUM1' else 'TEST1' end, "
+                        + "dateadd('DAY', mod(x, 3650), date '2000-01-01'), 1 + mod(x, " + PersistenceState.DEPARTMENTS + "), "
+                        + "'Street ' || x, 'City', 'ST', '190000' from system_range(1, " + rows + ")")
+                .executeUpdate());
+    }
+
+    @Benchmark
+    public List<Employee> entities(PersistenceState state) {
+        return state.tx.execute(status -> state.em
+                .createQuery("select e from Employee e left join fetch e.department order by e.id", Employee.class)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<PayrollLine> payrollProjection() {
+        return projectionService.payroll();
+    }
+}
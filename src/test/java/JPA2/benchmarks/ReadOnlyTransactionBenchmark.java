@@ -0,0 +1,82 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Employee;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение {@link #PAGE} сотрудников в обычной транзакции (снимки для проверки изменений и flush
+ * при фиксации) и в транзакции readOnly (FlushMode.MANUAL, сущности только для чтения, соединение реплики).
+ * mixed* — смешанная нагрузка: {@link #WRITE_PERCENT}% транзакций меняют зарплату одного сотрудника,
+ * остальные читают.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadOnlyTransactionBenchmark {
+    public static final int EMPLOYEES = 10_000;
+    public static final int PAGE = 500;
+    public static final int WRITE_PERCENT = 20;
+
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp(PersistenceState state) {
+        readOnly = new TransactionTemplate(state.context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        state.tx.executeWithoutResult(status -> state.em.createNativeQuery(
+                "insert into Employee (id, name, salary, department_id) "
+                        + "select x, 'Employee ' || x, 1000, 1 + mod(x, " + PersistenceState.DEPARTMENTS + ") "
+                        + "from system_range(1, " + EMPLOYEES + ")")
+                .executeUpdate());
+    }
+
+    @Benchmark
+    public List<Employee> loadReadWrite(PersistenceState state) {
+        return state.tx.execute(status -> load(state));
+    }
+
+    @Benchmark
+    public List<Employee> loadReadOnly(PersistenceState state) {
+        return readOnly.execute(status -> load(state));
+    }
+
+    @Benchmark
+    public Object mixedReadWrite(PersistenceState state) {
+        return write() ? raise(state) : state.tx.execute(status -> load(state));
+    }
+
+    @Benchmark
+    public Object mixedReadOnly(PersistenceState state) {
+        return write() ? raise(state) : readOnly.execute(status -> load(state));
+    }
+
+    private static boolean write() {
+        return ThreadLocalRandom.current().nextInt(100) < WRITE_PERCENT;
+    }
+
+    private static List<Employee> load(PersistenceState state) {
+        int from = ThreadLocalRandom.current().nextInt(EMPLOYEES - PAGE);
+        return state.em.createQuery("select e from Employee e join fetch e.department where e.id > :from order by e.id", Employee.class)
+                .setParameter("from", from)
+                .setMaxResults(PAGE)
+                .getResultList();
+    }
+
+    private static Employee raise(PersistenceState state) {
+        int id = 1 + ThreadLocalRandom.current().nextInt(EMPLOYEES);
+        return state.tx.execute(status -> {
+            Employee emp = state.em.find(Employee.class, id);
+            emp.setSalary(emp.getSalary() + 1);
+            return emp;
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Request;
+import JPA2.services.RequestPipelineService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цикл обработки запроса convertX → execute → generateResponse: синхронно, как в RequestTest.process,
+ * и через {@link RequestPipelineService} пачками по {@link #PIPELINE_BATCH} запросов.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBenchmark {
+    public static final int PIPELINE_BATCH = 1000;
+
+    @Benchmark
+    public int convertExecuteGenerateResponse(PersistenceState state) {
+        return state.tx.execute(status -> {
+            Request request = new Request();
+            request.setName("Запрос");
+            request.setConvertXInstant(Instant.now());
+            state.em.persist(request);
+            request.setExecuteInstant(Instant.now());
+            request.setGenerateResponseInstant(Instant.now());
+            return request.getId();
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE_BATCH)
+    public List<Request> pipeline(PersistenceState state) {
+        List<String> income = new ArrayList<>(PIPELINE_BATCH);
+        for (int i = 0; i < PIPELINE_BATCH; i++)
+            income.add("Запрос " + i);
+        return state.context.getBean(RequestPipelineService.class).process(income);
+    }
+}
@@ -0,0 +1,50 @@
+package JPA2.benchmarks;
+
+import JPA2.models.Request;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка таблицы из {@link #rows} запросов страницами по {@link #PAGE} в транзакции
+ * (со снимками для проверки изменений и flush при commit). Операция — один запрос,
+ * так что gc.alloc.rate.norm показывает байты на сущность с её тремя отметками времени.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@OperationsPerInvocation(RequestLoadBenchmark.PAGE)
+@State(Scope.Benchmark)
+public class RequestLoadBenchmark {
+    public static final int PAGE = 10_000;
+
+    @Param("1000000")
+    public int rows;
+
+    private int page;
+
+    @Setup
+    public void setUp(PersistenceState state) {
+        state.tx.executeWithoutResult(status -> state.em.createNativeQuery(
+                "insert into requests (id, name, convertX, execute, generateResponse) "
+                        + "select x, 'Request ' || x, dateadd('SECOND', x, timestamp '2024-01-01 00:00:00'), "
+                        + "dateadd('MILLISECOND', 1000 * x + 150, timestamp '2024-01-01 00:00:00'), "
+                        + "dateadd('MILLISECOND', 1000 * x + 420, timestamp '2024-01-01 00:00:00') "
+                        + "from system_range(1, " + rows + ")")
+                .executeUpdate());
+    }
+
+    @Benchmark
+    public List<Request> loadPage(PersistenceState state) {
+        int from = page * PAGE;
+        page = (page + 1) % (rows / PAGE);
+        return state.tx.execute(status -> state.em
+                .createQuery("select r from Request r where r.id > :from and r.id <= :to", Request.class)
+                .setParameter("from", from)
+                .setParameter("to", from + PAGE)
+                .getResultList());
+    }
+}
@@ -0,0 +1,47 @@
+package JPA2.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Холодный старт: каждый замер — новая JVM, которая поднимает контекст test-context.xml
+ * и обслуживает первый запрос /employees. scan — компоненты и сущности ищутся обходом classpath,
+ * fast-startup — одноимённый профиль, где они перечислены явно.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    @Param({"scan", "fast-startup"})
+    public String mode;
+
+    @Benchmark
+    public int firstRequest() throws Exception {
+        System.setProperty("jpa.showSql", "false");
+        XmlWebApplicationContext context = new XmlWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.setConfigLocation("classpath:/test-context.xml");
+        if (mode.equals("fast-startup"))
+            context.getEnvironment().setActiveProfiles(mode);
+        context.refresh();
+        try {
+            MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+            return mockMvc.perform(get("/employees?size=10")).andExpect(status().isOk())
+                    .andReturn().getResponse().getStatus();
+        } finally {
+            context.close();
+        }
+    }
+}
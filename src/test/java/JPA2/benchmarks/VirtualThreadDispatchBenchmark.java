@@ -0,0 +1,117 @@
+package JPA2.benchmarks;
+
+import JPA2.config.ConcurrencyLimitingDataSource;
+import JPA2.config.TaskExecutorConfiguration;
+import JPA2.config.VirtualThreadDispatchFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.Filter;
+import jakarta.servlet.Servlet;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * {@link #REQUESTS} запросов /employees приходят разом и проходят через {@link VirtualThreadDispatchFilter}
+ * и DispatcherServlet: поток вызывающего, как поток контейнера, только отдаёт запрос исполнителю.
+ * Каждый запрос, кроме чтения первой страницы сотрудников, ждёт ответа внешнего сервиса remoteMillis мс.
+ * platform — пул из {@link #PLATFORM_THREADS} платформенных потоков, как пул контейнера; virtual —
+ * виртуальные потоки, которым к базе одновременно допускается {@link #DB_CONCURRENCY} соединений.
+ * На JDK младше 21 virtual тоже работает на пуле платформенных потоков.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@OperationsPerInvocation(VirtualThreadDispatchBenchmark.REQUESTS)
+@State(Scope.Benchmark)
+public class VirtualThreadDispatchBenchmark {
+    public static final int EMPLOYEES = 10_000;
+    public static final int REQUESTS = 2_000;
+    public static final int PLATFORM_THREADS = 200;
+    public static final int DB_CONCURRENCY = 10;
+    private static final String DONE = VirtualThreadDispatchBenchmark.class.getName() + ".done";
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param("50")
+    public long remoteMillis;
+
+    private XmlWebApplicationContext context;
+    private AsyncTaskExecutor executor;
+    private MockMvc mockMvc;
+    private volatile Servlet servlet;
+
+    @Setup
+    public void setUp() {
+        System.setProperty("jdbc.url", "jdbc:h2:mem:dispatch;DB_CLOSE_DELAY=-1;MODE=LEGACY");
+        System.setProperty("jdbc.pool.maximumPoolSize", String.valueOf(DB_CONCURRENCY));
+        System.setProperty("jdbc.replica.pool.maximumPoolSize", String.valueOf(DB_CONCURRENCY));
+        System.setProperty("jpa.showSql", "false");
+        context = new XmlWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.setConfigLocation("classpath:/test-context.xml");
+        context.refresh();
+        EntityManager em = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status ->
+                em.createNativeQuery("insert into Employee (id, name, salary, S_DATE, version) "
+                                + "select x, 'Employee ' || x, 1000, dateadd('DAY', x, date '2000-01-01'), 0 "
+                                + "from system_range(1, " + EMPLOYEES + ")")
+                        .executeUpdate());
+
+        boolean virtual = mode.equals("virtual");
+        context.getBean("limitedReplicaDataSource", ConcurrencyLimitingDataSource.class)
+                .setMaxConcurrency(virtual ? DB_CONCURRENCY : 0);
+        executor = TaskExecutorConfiguration.createExecutor(virtual, PLATFORM_THREADS);
+        if (executor instanceof ThreadPoolTaskExecutor pool)
+            pool.initialize();
+        VirtualThreadDispatchFilter dispatch = context.getBean(VirtualThreadDispatchFilter.class);
+        dispatch.setExecutor(executor);
+        dispatch.setEnabled(true);
+        // фильтр контейнера: цепочка MockMvc синхронна, поэтому после VirtualThreadDispatchFilter
+        // запрос попадает в DispatcherServlet из MockMvc напрямую, уже на потоке исполнителя
+        Filter container = (request, response, chain) -> dispatch.doFilter(request, response, (req, res) -> {
+            try {
+                Thread.sleep(remoteMillis);
+                servlet.service(req, res);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                ((CompletableFuture<?>) req.getAttribute(DONE)).complete(null);
+            }
+        });
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(container).build();
+        servlet = mockMvc.getDispatcherServlet();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool)
+            pool.shutdown();
+        context.close();
+    }
+
+    @Benchmark
+    public void dispatch() throws Exception {
+        CompletableFuture<?>[] done = new CompletableFuture<?>[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            done[i] = new CompletableFuture<>();
+            mockMvc.perform(get("/employees?size=10").requestAttr(DONE, done[i]));
+        }
+        CompletableFuture.allOf(done).join();
+    }
+}
@@ -58,7 +58,7 @@ public class AddressTest {
         Employee emp = new Employee();
         emp.setName("Test Employee");
         emp.setSalary(50000);
-        emp.type = EmployeeType.ENUM1;
+        emp.setType(EmployeeType.ENUM1);
 
         Address address = new Address();
         address.setStreet("789 Oak Avenue");
@@ -108,7 +108,7 @@ public class AddressTest {
         Employee emp = new Employee();
         emp.setName("Update Test");
         emp.setSalary(60000);
-        emp.type = EmployeeType.TEST1;
+        emp.setType(EmployeeType.TEST1);
 
         Address address = new Address();
         emp.setAddress(address);
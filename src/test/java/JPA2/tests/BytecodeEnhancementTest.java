@@ -0,0 +1,98 @@
+package JPA2.tests;
+
+import JPA2.models.Department;
+import JPA2.models.Employee;
+import JPA2.models.EmployeeType;
+import JPA2.models.ParkingSpace;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for the build-time bytecode enhancement of entities (skipped when built with -DskipEnhance)
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@Transactional
+public class BytecodeEnhancementTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Before
+    public void assumeEnhanced() {
+        assumeTrue(SelfDirtinessTracker.class.isAssignableFrom(Employee.class));
+    }
+
+    @Test
+    public void testDirtyAttributesAreTrackedInline() {
+        Employee emp = new Employee();
+        emp.setName("Enhanced");
+        em.persist(emp);
+        em.flush();
+
+        SelfDirtinessTracker tracker = (SelfDirtinessTracker) emp;
+        assertFalse(tracker.$$_hibernate_hasDirtyAttributes());
+        emp.setSalary(42);
+        assertEquals(Arrays.asList("salary"), Arrays.asList(tracker.$$_hibernate_getDirtyAttributes()));
+        em.flush();
+        assertFalse(tracker.$$_hibernate_hasDirtyAttributes());
+    }
+
+    @Test
+    public void testChangesSurviveReload() {
+        Employee emp = new Employee();
+        emp.setName("Enhanced reload");
+        emp.setType(EmployeeType.TEST1);
+        emp.setPhoneNumbers(new HashMap<>());
+        em.persist(emp);
+        em.flush();
+        em.clear();
+
+        Employee found = em.find(Employee.class, emp.getId());
+        found.setType(EmployeeType.ENUM1);
+        found.getPhoneNumbers().put("Work", "555-0142");
+        em.flush();
+        em.clear();
+
+        Employee reloaded = em.find(Employee.class, emp.getId());
+        assertEquals(EmployeeType.ENUM1, reloaded.getType());
+        assertEquals("555-0142", reloaded.getPhoneNumbers().get("Work"));
+    }
+
+    @Test
+    public void testDepartmentEmployeesAreManaged() {
+        Department dept = new Department();
+        dept.setEmployees(new ArrayList<>());
+        Employee emp = new Employee();
+        emp.setDepartment(dept);
+        assertTrue(dept.getEmployees().contains(emp));
+
+        Department other = new Department();
+        other.setEmployees(new ArrayList<>());
+        emp.setDepartment(other);
+        assertFalse(dept.getEmployees().contains(emp));
+        assertTrue(other.getEmployees().contains(emp));
+    }
+
+    @Test
+    public void testParkingSpaceEmployeeIsManaged() {
+        ParkingSpace space = new ParkingSpace();
+        Employee emp = new Employee();
+        emp.setParkingSpace(space);
+        assertSame(emp, space.getEmployee());
+    }
+}
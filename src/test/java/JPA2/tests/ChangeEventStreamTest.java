@@ -0,0 +1,149 @@
+package JPA2.tests;
+
+import JPA2.models.ChangeType;
+import JPA2.models.OutboxEvent;
+import JPA2.services.ChangeEvent;
+import JPA2.services.ChangeEventStream;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the bounded in-process change event stream
+ */
+public class ChangeEventStreamTest {
+
+    private static List<OutboxEvent> events(int count) {
+        List<OutboxEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            events.add(new OutboxEvent("Employee", i, ChangeType.UPDATED, "name,salary", Instant.now()));
+        return events;
+    }
+
+    @Test
+    public void testPollAndAcknowledge() throws Exception {
+        ChangeEventStream stream = new ChangeEventStream(10);
+        ChangeEventStream.Subscription subscription = stream.subscribe("audit");
+        assertEquals(3, stream.publish(events(3)));
+
+        List<ChangeEvent> polled = subscription.poll(2, 0);
+        assertEquals(2, polled.size());
+        assertEquals(1, polled.get(0).sequence());
+        assertEquals(List.of("name", "salary"), polled.get(0).changedProperties());
+        assertEquals(3, subscription.poll(10, 0).get(0).sequence());
+        assertTrue(subscription.poll(10, 0).isEmpty());
+
+        assertEquals(3, subscription.lag());
+        subscription.acknowledge(2);
+        assertEquals(1, subscription.lag());
+        assertEquals(Map.of("audit", 1L), stream.lag());
+    }
+
+    @Test
+    public void testUnacknowledgedEventsRedelivered() throws Exception {
+        ChangeEventStream stream = new ChangeEventStream(10);
+        ChangeEventStream.Subscription subscription = stream.subscribe("audit");
+        stream.publish(events(3));
+        subscription.acknowledge(subscription.poll(1, 0).get(0).sequence());
+        subscription.poll(10, 0);
+
+        // the consumer failed after the first event: subscribing again resumes after the acknowledged one
+        List<ChangeEvent> redelivered = stream.subscribe("audit").poll(10, 0);
+        assertEquals(List.of(2L, 3L), redelivered.stream().map(ChangeEvent::sequence).toList());
+    }
+
+    @Test
+    public void testSlowestSubscriberBoundsCapacity() throws Exception {
+        ChangeEventStream stream = new ChangeEventStream(4);
+        ChangeEventStream.Subscription fast = stream.subscribe("fast");
+        ChangeEventStream.Subscription slow = stream.subscribe("slow");
+        stream.publish(events(4));
+        fast.acknowledge(fast.poll(10, 0).get(3).sequence());
+
+        assertEquals(0, stream.remainingCapacity());
+        try {
+            stream.publish(events(1));
+            fail("Ring buffer overwrote unacknowledged events");
+        } catch (IllegalStateException expected) {
+        }
+
+        slow.acknowledge(slow.poll(2, 0).get(1).sequence());
+        assertEquals(2, stream.remainingCapacity());
+        stream.publish(events(2));
+        // sequences 5 and 6 reuse the slots of 1 and 2
+        assertEquals(List.of(3L, 4L, 5L, 6L), slow.poll(10, 0).stream().map(ChangeEvent::sequence).toList());
+
+        // without the slow subscriber only the two events unacknowledged by the fast one are held
+        stream.unsubscribe("slow");
+        assertEquals(2, stream.remainingCapacity());
+    }
+
+    @Test
+    public void testNewSubscriberStartsAtHead() throws Exception {
+        ChangeEventStream stream = new ChangeEventStream(4);
+        stream.publish(events(4));
+        assertEquals(4, stream.remainingCapacity());
+        ChangeEventStream.Subscription subscription = stream.subscribe("late");
+        assertTrue(subscription.poll(10, 0).isEmpty());
+        stream.publish(events(1));
+        assertEquals(5, subscription.poll(10, 0).get(0).sequence());
+    }
+
+    @Test
+    public void testConfiguredSubscriberReceivesEventsPublishedBeforeSubscribing() throws Exception {
+        ChangeEventStream stream = new ChangeEventStream(4, new String[]{"audit", " "});
+        stream.publish(events(2));
+        assertEquals(Map.of("audit", 2L), stream.lag());
+        assertEquals(2, stream.subscribe("audit").poll(10, 0).size());
+    }
+
+    @Test
+    public void testAcknowledgedByAllSubscribersReleased() throws Exception {
+        ChangeEventStream stream = new ChangeEventStream(10);
+        ChangeEventStream.Subscription fast = stream.subscribe("fast");
+        ChangeEventStream.Subscription slow = stream.subscribe("slow");
+        stream.publish(events(3));
+        fast.acknowledge(fast.poll(10, 0).get(2).sequence());
+        assertTrue(stream.takeAcknowledged().isEmpty());
+
+        slow.acknowledge(slow.poll(10, 0).get(1).sequence());
+        assertEquals(2, stream.takeAcknowledged().size());
+        assertTrue(stream.takeAcknowledged().isEmpty());
+
+        // the last unacknowledged event is released when its only holder leaves
+        stream.unsubscribe("slow");
+        assertEquals(1, stream.takeAcknowledged().size());
+    }
+
+    @Test
+    public void testPollWaitsForPublish() throws Exception {
+        ChangeEventStream stream = new ChangeEventStream(4);
+        ChangeEventStream.Subscription subscription = stream.subscribe("audit");
+        CompletableFuture<List<ChangeEvent>> polled = CompletableFuture.supplyAsync(() -> {
+            try {
+                return subscription.poll(10, 10_000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(polled.isDone());
+        stream.publish(events(2));
+        assertEquals(2, polled.get(5, TimeUnit.SECONDS).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAcknowledgeUndelivered() {
+        ChangeEventStream stream = new ChangeEventStream(4);
+        ChangeEventStream.Subscription subscription = stream.subscribe("audit");
+        stream.publish(events(1));
+        subscription.acknowledge(1);
+    }
+}
@@ -0,0 +1,114 @@
+package JPA2.tests;
+
+import JPA2.config.ConcurrencyLimitingDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the connection concurrency limiter in front of the pool
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class ConcurrencyLimitingDataSourceTest {
+
+    @Autowired
+    @Qualifier("dataSource")
+    DataSource pool;
+
+    @Autowired
+    @Qualifier("limitedDataSource")
+    ConcurrencyLimitingDataSource configured;
+
+    private ConcurrencyLimitingDataSource limited;
+
+    @Before
+    public void setUp() {
+        limited = new ConcurrencyLimitingDataSource();
+        limited.setTargetDataSource(pool);
+        limited.setMaxConcurrency(2);
+        limited.setAcquireTimeoutMillis(200);
+    }
+
+    @Test
+    public void testDisabledByDefault() throws SQLException {
+        assertEquals(0, configured.getMaxConcurrency());
+        try (Connection connection = configured.getConnection(); Connection pooled = pool.getConnection()) {
+            assertEquals(pooled.getClass(), connection.getClass());
+        }
+    }
+
+    @Test
+    public void testWaitsForPermitAndTimesOut() throws SQLException {
+        Connection first = limited.getConnection();
+        Connection second = limited.getConnection();
+        assertEquals(0, limited.getAvailablePermits());
+        try {
+            limited.getConnection();
+            fail("Third connection must wait for a permit");
+        } catch (SQLTransientConnectionException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("2 connections in use"));
+        }
+        first.close();
+        try (Connection third = limited.getConnection()) {
+            assertTrue(third.isValid(1));
+        }
+        second.close();
+        // повторный close не выдаёт лишнее разрешение
+        second.close();
+        assertEquals(2, limited.getAvailablePermits());
+    }
+
+    @Test
+    public void testLimitsConcurrentConnections() throws Exception {
+        limited.setAcquireTimeoutMillis(10_000);
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                tasks.add(threads.submit(() -> {
+                    try (Connection connection = limited.getConnection()) {
+                        maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        connection.createStatement().execute("select 1");
+                        Thread.sleep(2);
+                        inUse.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks)
+                task.get(30, TimeUnit.SECONDS);
+        } finally {
+            threads.shutdownNow();
+        }
+        assertEquals(2, maxInUse.get());
+        assertEquals(2, limited.getAvailablePermits());
+        assertEquals(0, limited.getWaitingThreads());
+    }
+
+    @Test
+    public void testUnwrapReachesDriverConnection() throws SQLException {
+        try (Connection connection = limited.getConnection()) {
+            assertTrue(connection.isWrapperFor(org.h2.jdbc.JdbcConnection.class));
+            assertNotNull(connection.unwrap(org.h2.jdbc.JdbcConnection.class));
+            assertSame(connection, connection.unwrap(Connection.class));
+        }
+    }
+}
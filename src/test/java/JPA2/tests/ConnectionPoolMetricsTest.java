@@ -0,0 +1,85 @@
+package JPA2.tests;
+
+import JPA2.config.ConnectionPoolMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the pooled dataSource and its metrics
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class ConnectionPoolMetricsTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    ConnectionPoolMetrics metrics;
+
+    @Test
+    public void testDataSourceIsPooled() {
+        assertTrue(dataSource instanceof HikariDataSource);
+        HikariDataSource hikari = (HikariDataSource) dataSource;
+        assertEquals("JPA2Pool", hikari.getPoolName());
+        assertEquals(5, hikari.getMaximumPoolSize());
+        assertEquals(60000, hikari.getLeakDetectionThreshold());
+        assertEquals("JPA2Pool", metrics.getPoolName());
+    }
+
+    @Test
+    public void testConnectionIsReused() throws SQLException {
+        dataSource.getConnection().close();
+        long created = metrics.getCreatedCount();
+        for (int i = 0; i < 10; i++) {
+            try (Connection connection = dataSource.getConnection()) {
+                assertTrue(connection.isValid(1));
+            }
+        }
+        assertEquals(created, metrics.getCreatedCount());
+    }
+
+    @Test
+    public void testAcquireMetrics() throws SQLException {
+        long acquired = metrics.getAcquireCount();
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+        assertEquals(acquired + 1, metrics.getAcquireCount());
+        assertTrue(metrics.getTotalConnections() >= 1);
+        assertTrue(metrics.getActiveConnections() + metrics.getIdleConnections() <= metrics.getTotalConnections());
+        assertTrue(metrics.getAverageWaitMillis() >= 0);
+        assertTrue(metrics.getMaxWaitMillis() >= metrics.getAverageWaitMillis());
+    }
+
+    @Test
+    public void testTimeoutIsCounted() throws SQLException {
+        ConnectionPoolMetrics poolMetrics = new ConnectionPoolMetrics();
+        HikariDataSource small = new HikariDataSource();
+        small.setJdbcUrl("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1");
+        small.setUsername("sa");
+        small.setMaximumPoolSize(1);
+        small.setConnectionTimeout(250);
+        small.setMetricsTrackerFactory(poolMetrics);
+        try (small; Connection held = small.getConnection()) {
+            assertNotNull(held);
+            try {
+                small.getConnection().close();
+                fail("Pool of one connection must time out");
+            } catch (SQLTransientConnectionException expected) {
+                assertEquals(1, poolMetrics.getTimeoutCount());
+            }
+        }
+    }
+}
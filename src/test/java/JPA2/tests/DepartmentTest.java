@@ -55,14 +55,14 @@ public class DepartmentTest {
         Employee emp1 = new Employee();
         emp1.setName("Employee One");
         emp1.setSalary(50000);
-        emp1.type = EmployeeType.ENUM1;
+        emp1.setType(EmployeeType.ENUM1);
         emp1.setDepartment(dept);
         em.persist(emp1);
 
         Employee emp2 = new Employee();
         emp2.setName("Employee Two");
         emp2.setSalary(60000);
-        emp2.type = EmployeeType.TEST1;
+        emp2.setType(EmployeeType.TEST1);
         emp2.setDepartment(dept);
         em.persist(emp2);
 
@@ -0,0 +1,213 @@
+package JPA2.tests;
+
+import JPA2.models.*;
+import JPA2.services.CacheStatisticsService;
+import JPA2.services.EmployeeBulkService;
+import JPA2.services.EmployeeFilter;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for set-based salary updates and deletes
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class EmployeeBulkServiceTest {
+    private static int nextDepartment = 9100;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EmployeeBulkService bulkService;
+
+    @Autowired
+    CacheStatisticsService cacheStatistics;
+
+    TransactionTemplate tx;
+    int department;
+
+    /**
+     * Отдел из 1000 сотрудников: чётные ENUM1, нечётные TEST1, зарплата 1000 + i
+     */
+    @Before
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        department = nextDepartment++;
+        tx.executeWithoutResult(status -> {
+            Department dept = new Department();
+            dept.setId(department);
+            dept.setName("Mass " + department);
+            em.persist(dept);
+            Project project = new Project();
+            project.setId(department);
+            project.setName("Mass " + department);
+            em.persist(project);
+            for (int i = 0; i < 1000; i++) {
+                Employee emp = new Employee();
+                emp.setName("Mass " + i);
+                emp.setSalary(1000 + i);
+                emp.setType(i % 2 == 0 ? EmployeeType.ENUM1 : EmployeeType.TEST1);
+                emp.setDepartment(dept);
+                Map<String, String> phones = new HashMap<>();
+                phones.put("Work", "555-" + i);
+                emp.setPhoneNumbers(phones);
+                Set<Project> projects = new HashSet<>();
+                projects.add(project);
+                emp.setProjects(projects);
+                em.persist(emp);
+            }
+        });
+    }
+
+    private long sumSalary(EmployeeType type) {
+        return tx.execute(status -> em
+                .createQuery("select sum(e.salary) from Employee e where e.department.id = :department and e.type = :type", Long.class)
+                .setParameter("department", department)
+                .setParameter("type", type)
+                .getSingleResult());
+    }
+
+    @Test
+    public void testRaiseSalaryIsSetBased() {
+        long enum1 = sumSalary(EmployeeType.ENUM1);
+        long test1 = sumSalary(EmployeeType.TEST1);
+        Statistics statistics = cacheStatistics.getStatistics();
+        long prepared = statistics.getPrepareStatementCount();
+
+        int rows = bulkService.raiseSalary(EmployeeFilter.all().department(department).type(EmployeeType.ENUM1), 100);
+
+        assertEquals(500, rows);
+        // INSERT ... SELECT событий outbox и UPDATE
+        assertEquals(2, statistics.getPrepareStatementCount() - prepared);
+        assertEquals(enum1 + 500 * 100, sumSalary(EmployeeType.ENUM1));
+        assertEquals(test1, sumSalary(EmployeeType.TEST1));
+    }
+
+    @Test
+    public void testUnfilteredUpdateTouchesEveryRow() {
+        long employees = tx.execute(status -> em.createQuery("select count(e) from Employee e", Long.class).getSingleResult());
+        assertEquals(employees, bulkService.raiseSalary(EmployeeFilter.all(), 0));
+    }
+
+    @Test
+    public void testRaiseSalaryByPercentInBand() {
+        int rows = bulkService.raiseSalaryByPercent(EmployeeFilter.all().department(department).salaryBetween(1000L, 1009L), 10);
+        assertEquals(10, rows);
+        long raised = tx.execute(status -> em
+                .createQuery("select e.salary from Employee e where e.department.id = :department and e.name = 'Mass 5'", Long.class)
+                .setParameter("department", department)
+                .getSingleResult());
+        assertEquals(1005 + 100, raised);
+    }
+
+    @Test
+    public void testManagedEmployeesAreRefreshed() {
+        tx.executeWithoutResult(status -> {
+            Employee emp = em.createQuery("select e from Employee e where e.department.id = :department and e.name = 'Mass 0'", Employee.class)
+                    .setParameter("department", department)
+                    .getSingleResult();
+            // несохранённое изменение уходит в базу до массового оператора
+            emp.setName("Mass renamed");
+            assertEquals(1000, bulkService.setSalary(EmployeeFilter.all().department(department), 7));
+            assertEquals(7, emp.getSalary());
+            assertEquals("Mass renamed", emp.getName());
+        });
+    }
+
+    @Test
+    public void testOnlyMatchingManagedEmployeesAreRefreshed() {
+        tx.executeWithoutResult(status -> {
+            List<Employee> loaded = em.createQuery("select e from Employee e where e.department.id = :department "
+                            + "and e.name in ('Mass 0', 'Mass 1')", Employee.class)
+                    .setParameter("department", department)
+                    .getResultList();
+            assertEquals(2, loaded.size());
+            Statistics statistics = cacheStatistics.getStatistics();
+            long prepared = statistics.getPrepareStatementCount();
+
+            bulkService.raiseSalary(EmployeeFilter.all().department(department).type(EmployeeType.ENUM1), 100);
+
+            // события outbox, UPDATE и перечитывание одного сотрудника ENUM1; сотрудник TEST1 не перечитывается
+            assertEquals(3, statistics.getPrepareStatementCount() - prepared);
+            for (Employee emp : loaded)
+                assertEquals(emp.getType() == EmployeeType.ENUM1 ? 1100 : 1001, emp.getSalary());
+        });
+    }
+
+    private List<Object[]> outboxEvents(EmployeeType type) {
+        return tx.execute(status -> em.createQuery("select o.aggregateType, o.operation, o.changedProperties from OutboxEvent o "
+                        + "where o.aggregateId in (select e.id from Employee e where e.department.id = :department and e.type = :type)",
+                        Object[].class)
+                .setParameter("department", department)
+                .setParameter("type", type)
+                .getResultList());
+    }
+
+    @Test
+    public void testBulkChangesWriteOutboxEvents() {
+        List<Integer> test1 = tx.execute(status -> em.createQuery("select e.id from Employee e "
+                        + "where e.department.id = :department and e.type = :type", Integer.class)
+                .setParameter("department", department)
+                .setParameter("type", EmployeeType.TEST1)
+                .getResultList());
+        tx.executeWithoutResult(status -> em.createQuery("delete from OutboxEvent").executeUpdate());
+
+        // фильтр по зарплате: события пишутся для строк, отобранных до повышения
+        bulkService.raiseSalary(EmployeeFilter.all().department(department).type(EmployeeType.ENUM1).salaryBetween(1000L, 1099L), 1000);
+        List<Object[]> updated = outboxEvents(EmployeeType.ENUM1);
+        assertEquals(50, updated.size());
+        for (Object[] event : updated)
+            assertEquals(List.of("Employee", ChangeType.UPDATED, "salary"), Arrays.asList(event));
+
+        bulkService.delete(EmployeeFilter.all().department(department).type(EmployeeType.TEST1));
+        List<Object[]> deleted = tx.execute(status -> em.createQuery("select o.aggregateId, o.operation from OutboxEvent o "
+                        + "where o.operation = :operation", Object[].class)
+                .setParameter("operation", ChangeType.DELETED)
+                .getResultList());
+        assertEquals(500, deleted.size());
+        assertEquals(new HashSet<>(test1), deleted.stream().map(row -> (Integer) row[0]).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testDeleteRemovesCollectionsAndCachedMembership() {
+        assertEquals(1000, (int) tx.execute(status -> em.find(Department.class, department).getEmployees().size()));
+
+        int rows = tx.execute(status -> {
+            Employee managed = em.createQuery("select e from Employee e where e.department.id = :department and e.type = :type", Employee.class)
+                    .setParameter("department", department)
+                    .setParameter("type", EmployeeType.TEST1)
+                    .setMaxResults(1)
+                    .getSingleResult();
+            int deleted = bulkService.delete(EmployeeFilter.all().department(department).type(EmployeeType.TEST1));
+            assertFalse(em.contains(managed));
+            return deleted;
+        });
+
+        assertEquals(500, rows);
+        assertEquals(500, (int) tx.execute(status -> em.find(Department.class, department).getEmployees().size()));
+        assertEquals(500, (int) tx.execute(status -> em.find(Project.class, department).getEmployees().size()));
+        long phones = tx.execute(status -> (Long) em.createNativeQuery(
+                        "select count(*) from EMP_PHONE p join Employee e on e.id = p.Employee_id where e.department_id = ?", Long.class)
+                .setParameter(1, department)
+                .getSingleResult());
+        assertEquals(500, phones);
+    }
+}
@@ -0,0 +1,135 @@
+package JPA2.tests;
+
+import JPA2.models.Address;
+import JPA2.models.Employee;
+import JPA2.models.EmployeeType;
+import JPA2.services.EmployeeExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests for the streaming employee export
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@WebAppConfiguration
+public class EmployeeExportControllerTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EmployeeExportService exportService;
+
+    @PersistenceContext
+    EntityManager em;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (!em.createQuery("select e from Employee e where e.name like 'Export %'").getResultList().isEmpty())
+                return;
+            for (int i = 0; i < 25; i++) {
+                Employee emp = new Employee();
+                emp.setName("Export " + i + (i == 0 ? ", \"quoted\"" : ""));
+                emp.setSalary(100 + i);
+                emp.setType(EmployeeType.ENUM1);
+                emp.setDob(new GregorianCalendar(1990, 0, 1 + i));
+                emp.setAddress(new Address());
+                Map<String, String> phones = new HashMap<>();
+                phones.put("Work", "555-" + i);
+                emp.setPhoneNumbers(phones);
+                em.persist(emp);
+            }
+        });
+    }
+
+    @Test
+    public void testExportCsv() throws Exception {
+        MvcResult started = mockMvc.perform(get("/employees/export.csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=employees.csv"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = csv.split("\n");
+        assertEquals(EmployeeExportService.CSV_HEADER, lines[0]);
+        assertTrue(csv.contains("\"Export 0, \"\"quoted\"\"\",100,ENUM1,1990-01-01,,Северный проспект,"));
+        assertTrue(csv.contains(",Export 24,124,ENUM1,1990-01-25,,"));
+        assertTrue(csv.contains(",Work=555-24\n"));
+    }
+
+    @Test
+    public void testExportJson() throws Exception {
+        MvcResult started = mockMvc.perform(get("/employees/export.json"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String json = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        JsonNode employees = new ObjectMapper().readTree(json);
+        assertTrue(employees.isArray());
+        int exported = 0;
+        int previousId = 0;
+        for (JsonNode employee : employees) {
+            assertTrue(employee.get("id").asInt() > previousId);
+            previousId = employee.get("id").asInt();
+            if (employee.get("name").asText().startsWith("Export ")) {
+                exported++;
+                assertTrue(employee.get("phoneNumbers").get("Work").asText().startsWith("555-"));
+                assertEquals("Санкт-Петербург", employee.get("address").get("city").asText());
+            }
+        }
+        assertEquals(25, exported);
+    }
+
+    @Test
+    public void testSmallFetchSizeExportsEveryRow() throws Exception {
+        int fetchSize = exportService.getFetchSize();
+        exportService.setFetchSize(7);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long rows = exportService.exportCsv(out);
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(rows + 1, lines.length);
+            assertTrue(rows >= 25);
+        } finally {
+            exportService.setFetchSize(fetchSize);
+        }
+    }
+}
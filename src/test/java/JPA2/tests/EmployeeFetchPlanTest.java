@@ -0,0 +1,140 @@
+package JPA2.tests;
+
+import JPA2.models.*;
+import JPA2.services.EmployeeQueryService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Counts SQL statements for a list of 1,000 employees under each fetch plan
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@Transactional
+public class EmployeeFetchPlanTest {
+    private static final int DEPARTMENT = 7000;
+    private static final int EMPLOYEES = 1000;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    @Autowired
+    EmployeeQueryService queryService;
+
+    Statistics statistics;
+
+    @Before
+    public void setUp() {
+        Department dept = new Department();
+        dept.setId(DEPARTMENT);
+        dept.setName("Fetch Plan Department");
+        em.persist(dept);
+        List<Project> projects = new ArrayList<>();
+        for (int p = 0; p < 2; p++) {
+            Project project = new Project();
+            project.setId(DEPARTMENT + 1 + p);
+            project.setName("Fetch Plan Project " + p);
+            em.persist(project);
+            projects.add(project);
+        }
+        for (int i = 0; i < EMPLOYEES; i++) {
+            ParkingSpace parking = new ParkingSpace();
+            parking.setId(700_000 + i);
+            parking.setLot(i % 10);
+            em.persist(parking);
+
+            Employee emp = new Employee();
+            emp.setName("Fetch Plan " + i);
+            emp.setSalary(i);
+            emp.setType(EmployeeType.ENUM1);
+            emp.setDepartment(dept);
+            emp.setParkingSpace(parking);
+            emp.setProjects(new HashSet<>(projects));
+            Map<String, String> phones = new HashMap<>();
+            phones.put("Home", "1-" + i);
+            phones.put("Work", "2-" + i);
+            emp.setPhoneNumbers(phones);
+            em.persist(emp);
+        }
+        em.flush();
+        em.clear();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testSummaryPlan() {
+        List<Employee> employees = queryService.findByDepartment(DEPARTMENT, EmployeeFetchPlan.SUMMARY);
+        assertEquals(EMPLOYEES, employees.size());
+        long salaries = 0;
+        for (Employee emp : employees)
+            salaries += emp.getSalary() + emp.getName().length();
+        assertTrue(salaries > 0);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testWithDepartmentPlan() {
+        List<Employee> employees = queryService.findByDepartment(DEPARTMENT, EmployeeFetchPlan.WITH_DEPARTMENT);
+        assertEquals(EMPLOYEES, employees.size());
+        for (Employee emp : employees)
+            assertEquals("Fetch Plan Department", emp.getDepartment().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFullPlan() {
+        List<Employee> employees = queryService.findByDepartment(DEPARTMENT, EmployeeFetchPlan.FULL);
+        assertEquals(EMPLOYEES, employees.size());
+        for (Employee emp : employees) {
+            assertEquals("Fetch Plan Department", emp.getDepartment().getName());
+            assertTrue(emp.getParkingSpace().getId() >= 700_000);
+            assertEquals(2, emp.getProjects().size());
+            assertEquals(2, emp.getPhoneNumbers().size());
+        }
+        // сотрудники с отделом, парковкой и телефонами + проекты одним subselect
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindWithPlan() {
+        Employee byName = queryService.findByName("Fetch Plan 7", EmployeeFetchPlan.SUMMARY).get(0);
+        em.clear();
+        statistics.clear();
+        Employee emp = queryService.find(byName.getId(), EmployeeFetchPlan.WITH_DEPARTMENT);
+        assertEquals("Fetch Plan Department", emp.getDepartment().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testWithoutPlan() {
+        List<Employee> employees = em.createQuery(
+                "select e from Employee e where e.department.id = :department", Employee.class)
+                .setParameter("department", DEPARTMENT)
+                .getResultList();
+        for (Employee emp : employees) {
+            emp.getProjects().size();
+            emp.getPhoneNumbers().size();
+        }
+        // N+1: отдельные запросы на парковку и телефоны каждого сотрудника
+        assertTrue(statistics.getPrepareStatementCount() > EMPLOYEES);
+    }
+}
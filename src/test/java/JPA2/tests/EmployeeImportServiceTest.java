@@ -0,0 +1,136 @@
+package JPA2.tests;
+
+import JPA2.models.Department;
+import JPA2.models.Employee;
+import JPA2.models.EmployeeType;
+import JPA2.models.Project;
+import JPA2.services.EmployeeImportService;
+import org.hibernate.Session;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the bulk CSV import of employees
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@Transactional
+public class EmployeeImportServiceTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    EmployeeImportService importService;
+
+    @Test
+    public void testImportFullRows() throws IOException {
+        Department dept = new Department();
+        dept.setId(5000);
+        dept.setName("Import Department");
+        em.persist(dept);
+        Project project = new Project();
+        project.setId(5001);
+        project.setName("Import Project");
+        em.persist(project);
+        em.flush();
+
+        String csv = "name,salary,type,dob,startDate,departmentId,street,city,state,zip,phones,projects\n"
+                + "\"Ivanov, Ivan\",1000,ENUM1,1980-05-01,2020-01-15,5000,Nevsky 1,SPb,LO,190000,Home=111|Work=222,5001\n"
+                + "\n"
+                + "Petrov,2000,TEST1,,,5000,,,,,,\n";
+        EmployeeImportService.ImportResult result = importService.importCsv(new StringReader(csv));
+        assertEquals(2, result.rows());
+        assertTrue(result.rowsPerSecond() > 0);
+
+        List<Employee> imported = em.createQuery(
+                "select e from Employee e where e.department.id = 5000 order by e.salary", Employee.class)
+                .getResultList();
+        assertEquals(2, imported.size());
+        Employee ivanov = imported.get(0);
+        assertEquals("Ivanov, Ivan", ivanov.getName());
+        assertEquals(EmployeeType.ENUM1, ivanov.getType());
+        assertNotNull(ivanov.getDob());
+        assertNotNull(ivanov.getStartDate());
+        assertEquals("Nevsky 1", ivanov.getAddress().getStreet());
+        assertEquals("222", ivanov.getPhoneNumbers().get("Work"));
+        assertEquals(1, ivanov.getProjects().size());
+        assertEquals("Import Project", ivanov.getProjects().iterator().next().getName());
+        Employee petrov = imported.get(1);
+        assertEquals(EmployeeType.TEST1, petrov.getType());
+        assertNull(petrov.getDob());
+        assertTrue(petrov.getPhoneNumbers().isEmpty());
+    }
+
+    @Test
+    public void testPersistenceContextStaysBounded() throws IOException {
+        int rows = 1000;
+        int batchSize = importService.getBatchSize();
+        Reader csv = new Reader() {
+            private int row = -1;
+            private String pending = "";
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (pending.isEmpty()) {
+                    if (row == rows)
+                        return -1;
+                    if (row >= 0 && row % batchSize == batchSize - 1) {
+                        int managed = em.unwrap(Session.class).getStatistics().getEntityCount();
+                        assertTrue("persistence context must be cleared, but has " + managed, managed <= batchSize);
+                    }
+                    pending = row < 0 ? "name,salary,type,phones\n" : "Bulk " + row + "," + row + ",ENUM1,Home=" + row + "\n";
+                    row++;
+                }
+                int count = Math.min(length, pending.length());
+                pending.getChars(0, count, buffer, offset);
+                pending = pending.substring(count);
+                return count;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        EmployeeImportService.ImportResult result = importService.importCsv(csv);
+        assertEquals(rows, result.rows());
+        assertEquals(0, em.unwrap(Session.class).getStatistics().getEntityCount());
+        Long stored = em.createQuery("select count(e) from Employee e where e.name like 'Bulk %'", Long.class)
+                .getSingleResult();
+        assertEquals(Long.valueOf(rows), stored);
+    }
+
+    @Test
+    public void testPhoneWithoutTypeNamesLine() throws IOException {
+        String csv = "name,phones\n"
+                + "Sidorov,Home=111\n"
+                + "\n"
+                + "Kuznetsov,Home=333|5113196\n";
+        try {
+            importService.importCsv(new StringReader(csv));
+            fail("a phone without '=' must be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Строка 4:"));
+            assertTrue(e.getMessage(), e.getMessage().contains("5113196"));
+        }
+    }
+
+    @Test
+    public void testEmptyInput() throws IOException {
+        assertEquals(0, importService.importCsv(new StringReader("")).rows());
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
 import java.util.*;
 
 import static org.junit.Assert.*;
@@ -31,7 +32,7 @@ public class EmployeeModelTest {
         Employee emp = new Employee();
         emp.setName("Test Employee");
         emp.setSalary(50000);
-        emp.type = EmployeeType.ENUM1;
+        emp.setType(EmployeeType.ENUM1);
 
         em.persist(emp);
         em.flush();
@@ -40,7 +41,7 @@ public class EmployeeModelTest {
         assertNotNull(found);
         assertEquals("Test Employee", found.getName());
         assertEquals(50000, found.getSalary());
-        assertEquals(EmployeeType.ENUM1, found.type);
+        assertEquals(EmployeeType.ENUM1, found.getType());
     }
 
     @Test
@@ -61,7 +62,7 @@ public class EmployeeModelTest {
         Employee emp = new Employee();
         emp.setName("John Doe");
         emp.setSalary(60000);
-        emp.type = EmployeeType.TEST1;
+        emp.setType(EmployeeType.TEST1);
         emp.setDepartment(dept);
 
         em.persist(emp);
@@ -86,7 +87,7 @@ public class EmployeeModelTest {
         Employee emp = new Employee();
         emp.setName("Jane Smith");
         emp.setSalary(55000);
-        emp.type = EmployeeType.ENUM1;
+        emp.setType(EmployeeType.ENUM1);
         emp.setParkingSpace(parking);
 
         em.persist(emp);
@@ -115,9 +116,9 @@ public class EmployeeModelTest {
         Employee emp = new Employee();
         emp.setName("Bob Wilson");
         emp.setSalary(65000);
-        emp.type = EmployeeType.TEST1;
+        emp.setType(EmployeeType.TEST1);
 
-        Collection<Project> projects = new ArrayList<>();
+        Set<Project> projects = new HashSet<>();
         projects.add(project1);
         projects.add(project2);
         emp.setProjects(projects);
@@ -137,7 +138,7 @@ public class EmployeeModelTest {
         Employee emp = new Employee();
         emp.setName("Alice Brown");
         emp.setSalary(58000);
-        emp.type = EmployeeType.ENUM1;
+        emp.setType(EmployeeType.ENUM1);
 
         Address address = new Address();
         address.setStreet("123 Main St");
@@ -164,7 +165,7 @@ public class EmployeeModelTest {
         Employee emp = new Employee();
         emp.setName("Charlie Davis");
         emp.setSalary(52000);
-        emp.type = EmployeeType.TEST1;
+        emp.setType(EmployeeType.TEST1);
 
         Map<String, String> phones = new HashMap<>();
         phones.put("Home", "555-1234");
@@ -189,7 +190,7 @@ public class EmployeeModelTest {
         Employee emp = new Employee();
         emp.setName("David Lee");
         emp.setSalary(70000);
-        emp.type = EmployeeType.ENUM1;
+        emp.setType(EmployeeType.ENUM1);
 
         Calendar dob = Calendar.getInstance();
         dob.set(1990, Calendar.JANUARY, 15);
@@ -207,6 +208,29 @@ public class EmployeeModelTest {
         assertNotNull(found.getStartDate());
     }
 
+    @Test
+    public void testLocalDatesAndLegacyAccessors() {
+        Employee emp = new Employee();
+        emp.setName("Local Dates");
+        emp.setDobLocalDate(LocalDate.of(1990, 1, 15));
+        emp.setStartDate(new GregorianCalendar(2020, Calendar.MARCH, 2, 17, 45).getTime());
+        assertEquals(LocalDate.of(2020, 3, 2), emp.getStartLocalDate());
+
+        Calendar dob = emp.getDob();
+        assertEquals(1990, dob.get(Calendar.YEAR));
+        assertEquals(Calendar.JANUARY, dob.get(Calendar.MONTH));
+        assertEquals(15, dob.get(Calendar.DAY_OF_MONTH));
+        dob.add(Calendar.YEAR, 1);
+        assertEquals(LocalDate.of(1990, 1, 15), emp.getDobLocalDate());
+
+        em.persist(emp);
+        em.flush();
+        em.clear();
+        Employee found = em.find(Employee.class, emp.getId());
+        assertEquals(LocalDate.of(1990, 1, 15), found.getDobLocalDate());
+        assertEquals(new GregorianCalendar(2020, Calendar.MARCH, 2).getTime(), found.getStartDate());
+    }
+
     @Test
     @Rollback(false)
     public void testEmployeeAllFields() {
@@ -231,7 +255,7 @@ public class EmployeeModelTest {
         Employee emp = new Employee();
         emp.setName("Complete Employee");
         emp.setSalary(80000);
-        emp.type = EmployeeType.ENUM1;
+        emp.setType(EmployeeType.ENUM1);
 
         Calendar dob = Calendar.getInstance();
         dob.set(1985, Calendar.MARCH, 20);
@@ -241,7 +265,7 @@ public class EmployeeModelTest {
         emp.setDepartment(dept);
         emp.setParkingSpace(parking);
 
-        Collection<Project> projects = new ArrayList<>();
+        Set<Project> projects = new HashSet<>();
         projects.add(project);
         emp.setProjects(projects);
 
@@ -264,7 +288,7 @@ public class EmployeeModelTest {
         assertNotNull(found);
         assertEquals("Complete Employee", found.getName());
         assertEquals(80000, found.getSalary());
-        assertEquals(EmployeeType.ENUM1, found.type);
+        assertEquals(EmployeeType.ENUM1, found.getType());
         assertNotNull(found.getDob());
         assertNotNull(found.getStartDate());
         assertNotNull(found.getDepartment());
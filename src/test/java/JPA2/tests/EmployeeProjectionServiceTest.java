@@ -0,0 +1,88 @@
+package JPA2.tests;
+
+import JPA2.models.Department;
+import JPA2.models.Employee;
+import JPA2.models.EmployeeType;
+import JPA2.projections.DirectoryEntry;
+import JPA2.projections.PayrollLine;
+import JPA2.services.EmployeeProjectionService;
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for record projections of employees
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@Transactional
+public class EmployeeProjectionServiceTest {
+    private static final int DEPARTMENT = 9000;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    EmployeeProjectionService projectionService;
+
+    @Before
+    public void setup() {
+        Department dept = new Department();
+        dept.setId(DEPARTMENT);
+        dept.setName("Projections");
+        em.persist(dept);
+        for (int i = 0; i < 3; i++) {
+            Employee emp = new Employee();
+            emp.setName("Projection " + (char) ('C' - i));
+            emp.setSalary(500 + i);
+            emp.setType(EmployeeType.TEST1);
+            emp.setDepartment(dept);
+            em.persist(emp);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void testPayrollByDepartment() {
+        List<PayrollLine> payroll = projectionService.payrollByDepartment(DEPARTMENT);
+        assertEquals(3, payroll.size());
+        PayrollLine first = payroll.get(0);
+        assertEquals("Projection C", first.name());
+        assertEquals(500, first.salary());
+        assertEquals(EmployeeType.TEST1, first.type());
+        assertEquals("Projections", first.departmentName());
+        assertEquals(0, em.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    public void testDirectoryIsSortedByName() {
+        List<DirectoryEntry> directory = projectionService.directoryByDepartment(DEPARTMENT);
+        assertEquals(List.of("Projection A", "Projection B", "Projection C"),
+                directory.stream().map(DirectoryEntry::name).toList());
+        assertEquals(0, em.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    public void testEmployeesWithoutDepartmentAreListed() {
+        Employee emp = new Employee();
+        emp.setName("Projection without department");
+        em.persist(emp);
+        em.flush();
+        assertTrue(projectionService.directory().stream()
+                .anyMatch(e -> e.id() == emp.getId() && e.departmentName() == null));
+        assertTrue(projectionService.payroll().stream()
+                .anyMatch(p -> p.id() == emp.getId() && p.departmentName() == null));
+    }
+}
@@ -61,14 +61,14 @@ public class EmployeeTypeTest {
         Employee emp = new Employee();
         emp.setName("Test Employee ENUM1");
         emp.setSalary(50000);
-        emp.type = EmployeeType.ENUM1;
+        emp.setType(EmployeeType.ENUM1);
 
         em.persist(emp);
         em.flush();
 
         Employee found = em.find(Employee.class, emp.getId());
         assertNotNull(found);
-        assertEquals(EmployeeType.ENUM1, found.type);
+        assertEquals(EmployeeType.ENUM1, found.getType());
         assertEquals(EmployeeType.ENUM1, found.getType());
     }
 
@@ -85,7 +85,7 @@ public class EmployeeTypeTest {
 
         Employee found = em.find(Employee.class, emp.getId());
         assertNotNull(found);
-        assertEquals(EmployeeType.TEST1, found.type);
+        assertEquals(EmployeeType.TEST1, found.getType());
         assertEquals(EmployeeType.TEST1, found.getType());
     }
 
@@ -95,19 +95,21 @@ public class EmployeeTypeTest {
         Employee emp = new Employee();
         emp.setName("Type Change Test");
         emp.setSalary(55000);
-        emp.type = EmployeeType.TEST1;
+        emp.setType(EmployeeType.TEST1);
 
         em.persist(emp);
         em.flush();
 
         Employee found = em.find(Employee.class, emp.getId());
-        assertEquals(EmployeeType.TEST1, found.type);
+        assertEquals(EmployeeType.TEST1, found.getType());
 
-        found.type = EmployeeType.ENUM1;
+        found.setType(EmployeeType.ENUM1);
         em.flush();
+        // перечитываем из базы, а не из persist-контекста
+        em.clear();
 
         Employee updated = em.find(Employee.class, emp.getId());
-        assertEquals(EmployeeType.ENUM1, updated.type);
+        assertEquals(EmployeeType.ENUM1, updated.getType());
     }
 
     @Test
@@ -0,0 +1,71 @@
+package JPA2.tests;
+
+import JPA2.config.MvcConfiguration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.metamodel.ManagedType;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the fast-startup profile, which lists components and managed types explicitly
+ * instead of scanning the classpath for them
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@ActiveProfiles("fast-startup")
+public class FastStartupContextTest {
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    PersistenceManagedTypes managedTypes;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void testListedTypesMatchClasspathScan() {
+        PersistenceManagedTypes scanned = new PersistenceManagedTypesScanner(new DefaultResourceLoader())
+                .scan("JPA2.models");
+        assertEquals(new HashSet<>(scanned.getManagedClassNames()), new HashSet<>(managedTypes.getManagedClassNames()));
+        assertEquals(scanned.getManagedPackages(), managedTypes.getManagedPackages());
+    }
+
+    @Test
+    public void testListedBeansMatchComponentScan() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(true);
+        scanner.addExcludeFilter(new AssignableTypeFilter(MvcConfiguration.class));
+        Set<BeanDefinition> components = scanner.findCandidateComponents("JPA2");
+        assertFalse(components.isEmpty());
+        for (BeanDefinition component : components) {
+            Class<?> type = Class.forName(component.getBeanClassName());
+            assertTrue(type.getName() + " is not listed", context.getBeanNamesForType(type).length > 0);
+        }
+    }
+
+    @Test
+    public void testListedEntitiesMapped() {
+        Set<String> mapped = new HashSet<>();
+        for (ManagedType<?> type : em.getMetamodel().getManagedTypes())
+            mapped.add(type.getJavaType().getName());
+        assertEquals(new HashSet<>(managedTypes.getManagedClassNames()), mapped);
+    }
+}
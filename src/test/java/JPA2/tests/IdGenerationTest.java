@@ -0,0 +1,160 @@
+package JPA2.tests;
+
+import JPA2.config.IdSequenceMigration;
+import JPA2.config.PooledSequenceGenerator;
+import JPA2.models.Employee;
+import JPA2.models.EmployeeType;
+import JPA2.models.Request;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.IdentifierGenerationException;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.PersistenceContext;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for sequence based pooled id generation and the migration of existing tables
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@Transactional
+public class IdGenerationTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Entity(name = "PooledIdHolder")
+    static class PooledIdHolder {
+        @Id
+        @GeneratedValue(generator = "pooled_holder_seq")
+        @GenericGenerator(name = "pooled_holder_seq", type = PooledSequenceGenerator.class,
+                parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "POOLED_HOLDER_SEQ"))
+        int id;
+    }
+
+    @Test
+    public void testSequencesAllocateBlocks() {
+        Number increment = (Number) em.createNativeQuery(
+                "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'EMPLOYEE_SEQ'")
+                .getSingleResult();
+        assertEquals(50, increment.intValue());
+        increment = (Number) em.createNativeQuery(
+                "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'REQUEST_SEQ'")
+                .getSingleResult();
+        assertEquals(50, increment.intValue());
+    }
+
+    @Test
+    public void testAllocationSizeSettingOverridesDefault() {
+        try (SessionFactory sessionFactory = StandaloneSessionFactory.build("allocation",
+                Map.of(PooledSequenceGenerator.ALLOCATION_SIZE, "7"), PooledIdHolder.class)) {
+            List<Integer> ids = new ArrayList<>();
+            sessionFactory.inTransaction(session -> {
+                for (int i = 0; i < 8; i++) {
+                    PooledIdHolder holder = new PooledIdHolder();
+                    session.persist(holder);
+                    ids.add(holder.id);
+                }
+            });
+            // pooled-lo: the first block is 1..7, the eighth id opens the next block at 8
+            assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8), ids);
+            try (Session session = sessionFactory.openSession()) {
+                Integer increment = session.createNativeQuery(
+                        "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'POOLED_HOLDER_SEQ'",
+                        Integer.class).getSingleResult();
+                assertEquals(7, increment.intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testIdsPastMaxValueRejected() {
+        Map<String, Object> range = Map.of(
+                PooledSequenceGenerator.INITIAL_VALUE, "1",
+                PooledSequenceGenerator.MAX_VALUE, "3",
+                PooledSequenceGenerator.ALLOCATION_SIZE, "2");
+        try (SessionFactory sessionFactory = StandaloneSessionFactory.build("idrange", range, PooledIdHolder.class)) {
+            List<Integer> ids = new ArrayList<>();
+            try {
+                sessionFactory.inTransaction(session -> {
+                    for (int i = 0; i < 4; i++) {
+                        PooledIdHolder holder = new PooledIdHolder();
+                        session.persist(holder);
+                        ids.add(holder.id);
+                    }
+                });
+                fail("Expected the exhausted range to be rejected");
+            } catch (IdentifierGenerationException expected) {
+            }
+            // the second block starts at 3 and may hand out only 3 itself
+            assertEquals(List.of(1, 2, 3), ids);
+        }
+    }
+
+    @Test
+    public void testIdsAssignedOnPersistWithoutInsert() {
+        Employee first = new Employee();
+        first.setName("Pooled One");
+        first.setType(EmployeeType.ENUM1);
+        em.persist(first);
+        Employee second = new Employee();
+        second.setName("Pooled Two");
+        second.setType(EmployeeType.ENUM1);
+        em.persist(second);
+
+        assertTrue(first.getId() > 0);
+        assertNotEquals(first.getId(), second.getId());
+
+        Request request = new Request();
+        request.setName("Pooled Request");
+        em.persist(request);
+        assertTrue(request.getId() > 0);
+    }
+
+    @Test
+    public void testMigrationRestartsSequencesAfterExistingRows() throws SQLException {
+        DriverManagerDataSource legacy = new DriverManagerDataSource(
+                "jdbc:h2:mem:legacyids;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = legacy.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE EMPLOYEE(ID INT PRIMARY KEY)");
+            statement.execute("INSERT INTO EMPLOYEE VALUES (1), (7), (42)");
+            statement.execute("CREATE TABLE REQUESTS(ID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY)");
+        }
+
+        Map<String, Long> restarted = new IdSequenceMigration(legacy, 50).migrate();
+        assertEquals(Long.valueOf(43), restarted.get("EMPLOYEE_SEQ"));
+        assertEquals(Long.valueOf(1), restarted.get("REQUEST_SEQ"));
+
+        try (Connection connection = legacy.getConnection(); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT NEXT VALUE FOR EMPLOYEE_SEQ")) {
+                rs.next();
+                assertEquals(43, rs.getLong(1));
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT NEXT VALUE FOR EMPLOYEE_SEQ")) {
+                rs.next();
+                assertEquals(93, rs.getLong(1));
+            }
+        }
+    }
+}
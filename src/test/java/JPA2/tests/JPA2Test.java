@@ -32,11 +32,11 @@ public class JPA2Test {
     @Transactional
     public Employee createEmployee(String name, long salary) {
         Employee emp = new Employee();
-        emp.type = EmployeeType.ENUM1;
+        emp.setType(EmployeeType.ENUM1);
         emp.setName(name);
         emp.setSalary(salary);
-        emp.phoneNumbers = new HashMap<String, String>();
-        emp.phoneNumbers.put("Домашний", "5113195");
+        emp.setPhoneNumbers(new HashMap<String, String>());
+        emp.getPhoneNumbers().put("Домашний", "5113195");
         em.persist(emp); // Сохраняем в persist-контексте, чтобы где-то кроме прямого указателя можно было получить
         return emp;
     }
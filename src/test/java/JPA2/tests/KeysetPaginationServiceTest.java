@@ -0,0 +1,139 @@
+package JPA2.tests;
+
+import JPA2.models.Department;
+import JPA2.models.Employee;
+import JPA2.models.EmployeeOrder;
+import JPA2.models.Request;
+import JPA2.services.KeysetPage;
+import JPA2.services.KeysetPaginationService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for keyset pagination over employees and requests
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class KeysetPaginationServiceTest {
+
+    @Autowired
+    KeysetPaginationService paginationService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Before
+    public void setup() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (em.find(Department.class, 8000) != null)
+                return;
+            for (int d = 0; d < 3; d++) {
+                Department dept = new Department();
+                dept.setId(8000 + d);
+                dept.setName("Keyset " + d);
+                em.persist(dept);
+            }
+            for (int i = 0; i < 200; i++) {
+                Employee emp = new Employee();
+                emp.setName("Keyset " + i);
+                // повторяющиеся даты и отделы, часть пустых
+                if (i % 7 != 0)
+                    emp.setStartDate(new GregorianCalendar(2020, i % 4, 1).getTime());
+                if (i % 5 != 0)
+                    emp.setDepartment(em.getReference(Department.class, 8000 + i % 3));
+                em.persist(emp);
+            }
+            for (int i = 0; i < 50; i++) {
+                Request request = new Request();
+                request.setName("Keyset " + i);
+                em.persist(request);
+            }
+        });
+    }
+
+    private List<Integer> expected(EmployeeOrder order) {
+        String orderBy = order.getColumn() == null ? "e.id" : order.getColumn() + " nulls first, e.id";
+        return new TransactionTemplate(transactionManager).execute(status -> em
+                .createQuery("select e.id from Employee e order by " + orderBy, Integer.class)
+                .getResultList());
+    }
+
+    private List<Integer> walk(EmployeeOrder order, int size) {
+        List<Integer> ids = new ArrayList<>();
+        String token = null;
+        do {
+            KeysetPage<Employee> page = paginationService.employees(order, token, size);
+            assertTrue(page.items().size() <= size);
+            if (page.hasNext())
+                assertEquals(size, page.items().size());
+            for (Employee emp : page.items())
+                ids.add(emp.getId());
+            token = page.next();
+        } while (token != null);
+        return ids;
+    }
+
+    @Test
+    public void testWalkById() {
+        assertEquals(expected(EmployeeOrder.ID), walk(EmployeeOrder.ID, 37));
+    }
+
+    @Test
+    public void testWalkByStartDate() {
+        assertEquals(expected(EmployeeOrder.START_DATE), walk(EmployeeOrder.START_DATE, 37));
+    }
+
+    @Test
+    public void testWalkByDepartment() {
+        assertEquals(expected(EmployeeOrder.DEPARTMENT), walk(EmployeeOrder.DEPARTMENT, 37));
+    }
+
+    @Test
+    public void testWalkRequests() {
+        List<Integer> expected = new TransactionTemplate(transactionManager).execute(status -> em
+                .createQuery("select r.id from Request r order by r.id", Integer.class)
+                .getResultList());
+        List<Integer> ids = new ArrayList<>();
+        String token = null;
+        do {
+            KeysetPage<Request> page = paginationService.requests(token, 11);
+            for (Request request : page.items())
+                ids.add(request.getId());
+            token = page.next();
+        } while (token != null);
+        assertEquals(expected, ids);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTokenFromAnotherOrderIsRejected() {
+        String token = paginationService.employees(EmployeeOrder.ID, null, 5).next();
+        paginationService.employees(EmployeeOrder.START_DATE, token, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGarbageTokenIsRejected() {
+        paginationService.employees(EmployeeOrder.ID, "not a token!", 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPageSizeIsLimited() {
+        paginationService.requests(null, KeysetPaginationService.MAX_PAGE_SIZE + 1);
+    }
+}
@@ -0,0 +1,123 @@
+package JPA2.tests;
+
+import JPA2.models.Department;
+import JPA2.models.Employee;
+import JPA2.models.ParkingSpace;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Counts SQL statements for a page of employees or parking spaces with lazy to-one associations
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@Transactional
+public class LazyToOneTest {
+    private static final int DEPARTMENT = 9500;
+    private static final int PARKING = 950_000;
+    private static final int PAGE = 50;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @Before
+    public void setUp() {
+        Department dept = new Department();
+        dept.setId(DEPARTMENT);
+        dept.setName("Lazy Department");
+        em.persist(dept);
+        for (int i = 0; i < PAGE; i++) {
+            ParkingSpace parking = new ParkingSpace();
+            parking.setId(PARKING + i);
+            parking.setLot(i);
+            em.persist(parking);
+
+            Employee emp = new Employee();
+            emp.setName("Lazy " + i);
+            emp.setDepartment(dept);
+            emp.setParkingSpace(parking);
+            em.persist(emp);
+        }
+        em.flush();
+        em.clear();
+        emf.getCache().evictAll();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testEmployeePageIsOneStatement() {
+        List<Employee> employees = em.createQuery(
+                        "select e from Employee e where e.department.id = :department order by e.id", Employee.class)
+                .setParameter("department", DEPARTMENT)
+                .getResultList();
+        assertEquals(PAGE, employees.size());
+        for (Employee emp : employees) {
+            assertFalse(Hibernate.isInitialized(emp.getDepartment()));
+            assertFalse(Hibernate.isInitialized(emp.getParkingSpace()));
+            assertEquals(DEPARTMENT, emp.getDepartment().getId());
+        }
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        // отдел загружается при первом обращении, один раз на всех
+        assertEquals("Lazy Department", employees.get(0).getDepartment().getName());
+        assertEquals("Lazy Department", employees.get(PAGE - 1).getDepartment().getName());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testParkingSpacePageIsOneStatement() {
+        // обратную сторону один-к-одному лениво загружает только улучшенный байткод
+        assumeTrue(SelfDirtinessTracker.class.isAssignableFrom(Employee.class));
+        List<ParkingSpace> spaces = em.createQuery(
+                        "select p from ParkingSpace p where p.id between :from and :to order by p.id", ParkingSpace.class)
+                .setParameter("from", PARKING)
+                .setParameter("to", PARKING + PAGE - 1)
+                .getResultList();
+        assertEquals(PAGE, spaces.size());
+        for (ParkingSpace space : spaces)
+            assertFalse(Hibernate.isPropertyInitialized(space, "employee"));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        Employee emp = spaces.get(0).getEmployee();
+        assertEquals("Lazy 0", emp.getName());
+        assertFalse(Hibernate.isInitialized(emp.getDepartment()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testJoinFetchStillLoadsEverything() {
+        List<Employee> employees = em.createQuery(
+                        "select e from Employee e join fetch e.department join fetch e.parkingSpace "
+                                + "where e.department.id = :department", Employee.class)
+                .setParameter("department", DEPARTMENT)
+                .getResultList();
+        for (Employee emp : employees) {
+            assertEquals("Lazy Department", emp.getDepartment().getName());
+            assertTrue(emp.getParkingSpace().getId() >= PARKING);
+        }
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,82 @@
+package JPA2.tests;
+
+import JPA2.models.Department;
+import JPA2.services.CacheStatisticsService;
+import JPA2.services.PersistenceMetricsService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests for the Prometheus metrics endpoint
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@WebAppConfiguration
+public class MetricsControllerTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CacheStatisticsService cacheStatistics;
+
+    @PersistenceContext
+    EntityManager em;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        // earlier tests leave dozens of queries with the same millisecond maximum, which would
+        // make the slowest-query list depend on hash order
+        cacheStatistics.getStatistics().clear();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status ->
+                em.createQuery("select d from Department d where d.name = :name", Department.class)
+                        .setParameter("name", "Metrics")
+                        .getResultList());
+    }
+
+    @Test
+    public void testMetricsEndpoint() throws Exception {
+        String body = mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", PersistenceMetricsService.CONTENT_TYPE))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertTrue(body.contains("# TYPE hibernate_query_executions_total counter\n"));
+        assertTrue(body.contains("hibernate_entity_operations_total{operation=\"load\"} "));
+        assertTrue(body.contains("hibernate_second_level_cache_requests_total{result=\"hit\"} "));
+        assertTrue(body.contains("hibernate_cache_region_requests_total{region=\"department\",result=\"miss\"} "));
+        assertTrue(body.contains("hibernate_slow_query_max_seconds{query=\"select d from Department d where d.name = :name\"} "));
+        assertTrue(body.contains("# TYPE jdbc_pool_connections_active gauge\n"));
+        assertTrue(body.contains("jdbc_pool_acquires_total{pool=\"JPA2Replica\"} "));
+        for (String line : body.split("\n")) {
+            if (!line.startsWith("#"))
+                assertTrue(line, line.matches("[a-z_]+(\\{.*\\})? [0-9.E-]+"));
+        }
+    }
+}
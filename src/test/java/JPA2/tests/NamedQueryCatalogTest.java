@@ -0,0 +1,135 @@
+package JPA2.tests;
+
+import JPA2.config.StatementCacheProperties;
+import JPA2.models.*;
+import JPA2.services.PersistenceMetricsService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.named.NamedObjectRepository;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the named query catalog, its startup validation and the query plan cache settings
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@Transactional
+public class NamedQueryCatalogTest {
+    static final List<String> CATALOG = List.of(
+            Employee.FIND_ALL, Employee.FIND_BY_NAME, Employee.FIND_BY_DEPARTMENT,
+            Employee.DIRECTORY, Employee.DIRECTORY_BY_DEPARTMENT,
+            Employee.PAYROLL, Employee.PAYROLL_BY_DEPARTMENT, Employee.TOTAL_SALARY,
+            Department.FIND_BY_NAME, Project.FIND_BY_NAME,
+            Request.AFTER_ID, Request.COMPLETED_BEFORE, Request.DELETE_BY_IDS);
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    @Qualifier("dataSource")
+    DataSource dataSource;
+
+    @Autowired
+    PersistenceMetricsService metrics;
+
+    @Entity(name = "BrokenQueryHolder")
+    @NamedQuery(name = "BrokenQueryHolder.broken", query = "select b from BrokenQueryHolder b where b.missing = 1")
+    static class BrokenQueryHolder {
+        @Id
+        int id;
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+    }
+
+    @Test
+    public void testCatalogCompiledAtStartup() {
+        NamedObjectRepository repository = sessionFactory().getQueryEngine().getNamedObjectRepository();
+        for (String name : CATALOG)
+            assertNotNull(name, repository.getSqmQueryMemento(name));
+    }
+
+    @Test
+    public void testBrokenNamedQueryFailsStartup() {
+        try {
+            StandaloneSessionFactory.build("broken", Map.of("hibernate.query.startup_check", "true"),
+                    BrokenQueryHolder.class).close();
+            fail("Expected the broken named query to stop the session factory");
+        } catch (RuntimeException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("BrokenQueryHolder.broken"));
+        }
+    }
+
+    @Test
+    public void testRepeatedQueriesServedFromPlanCache() {
+        Statistics statistics = sessionFactory().getStatistics();
+        em.createNamedQuery(Employee.FIND_BY_NAME, Employee.class).setParameter("name", "Nobody").getResultList();
+        long misses = statistics.getQueryPlanCacheMissCount();
+        long hits = statistics.getQueryPlanCacheHitCount();
+        for (int i = 0; i < 3; i++)
+            em.createNamedQuery(Employee.FIND_BY_NAME, Employee.class).setParameter("name", "Nobody " + i).getResultList();
+        assertEquals(misses, statistics.getQueryPlanCacheMissCount());
+        assertTrue(statistics.getQueryPlanCacheHitCount() >= hits + 3);
+
+        String adHoc = "select e from Employee e where e.salary = :salary and e.name = 'plan cache test'";
+        em.createQuery(adHoc, Employee.class).setParameter("salary", 0).getResultList();
+        assertTrue(statistics.getQueryPlanCacheMissCount() > misses);
+        misses = statistics.getQueryPlanCacheMissCount();
+        for (int i = 1; i < 3; i++)
+            em.createQuery(adHoc, Employee.class).setParameter("salary", i).getResultList();
+        assertEquals(misses, statistics.getQueryPlanCacheMissCount());
+    }
+
+    @Test
+    public void testPlanCacheMetricsExported() {
+        em.createQuery("select count(e) from Employee e", Long.class).getSingleResult();
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("# TYPE hibernate_query_plan_cache_requests_total counter"));
+        assertTrue(scrape.contains("hibernate_query_plan_cache_requests_total{result=\"hit\"}"));
+        assertTrue(scrape.contains("hibernate_query_plan_cache_requests_total{result=\"miss\"}"));
+    }
+
+    @Test
+    public void testPlanAndStatementCacheSizes() throws Exception {
+        assertEquals("2048", sessionFactory().getProperties().get("hibernate.query.plan_cache_max_size"));
+        try (Connection connection = dataSource.getConnection();
+             ResultSet rs = connection.createStatement().executeQuery(
+                     "select setting_value from information_schema.settings where setting_name = 'QUERY_CACHE_SIZE'")) {
+            assertTrue(rs.next());
+            assertEquals("64", rs.getString(1));
+        }
+    }
+
+    @Test
+    public void testStatementCacheSettingFollowsDriver() {
+        assertEquals("64", StatementCacheProperties.forDriver("org.h2.Driver", 64).getProperty("QUERY_CACHE_SIZE"));
+        assertEquals("64", StatementCacheProperties.forDriver("org.postgresql.Driver", 64)
+                .getProperty("preparedStatementCacheQueries"));
+        Properties mysql = StatementCacheProperties.forDriver("com.mysql.cj.jdbc.Driver", 64);
+        assertEquals("true", mysql.getProperty("cachePrepStmts"));
+        assertEquals("64", mysql.getProperty("prepStmtCacheSize"));
+        // у HSQLDB нет настройки размера кэша команд
+        assertTrue(StatementCacheProperties.forDriver("org.hsqldb.jdbcDriver", 64).isEmpty());
+    }
+}
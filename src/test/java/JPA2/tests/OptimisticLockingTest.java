@@ -0,0 +1,135 @@
+package JPA2.tests;
+
+import JPA2.models.Department;
+import JPA2.models.Employee;
+import JPA2.models.Project;
+import JPA2.services.EmployeeBulkService;
+import JPA2.services.EmployeeFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for version checks on concurrent updates
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class OptimisticLockingTest {
+    private static int nextDepartment = 9700;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EmployeeBulkService bulkService;
+
+    TransactionTemplate tx;
+    TransactionTemplate concurrent;
+    int department;
+    int employeeId;
+
+    @Before
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        department = nextDepartment++;
+        employeeId = tx.execute(status -> {
+            Department dept = new Department();
+            dept.setId(department);
+            dept.setName("Versioned " + department);
+            em.persist(dept);
+            Employee emp = new Employee();
+            emp.setName("Versioned");
+            emp.setSalary(1000);
+            emp.setDepartment(dept);
+            emp.setPhoneNumbers(new HashMap<>(Map.of("Work", "555-0100")));
+            em.persist(emp);
+            return emp;
+        }).getId();
+    }
+
+    private Employee employee() {
+        return tx.execute(status -> em.find(Employee.class, employeeId));
+    }
+
+    @Test
+    public void testUpdateIncrementsVersion() {
+        assertEquals(0, employee().getVersion());
+        tx.executeWithoutResult(status -> em.find(Employee.class, employeeId).setSalary(2000));
+        assertEquals(1, employee().getVersion());
+        tx.executeWithoutResult(status -> em.find(Employee.class, employeeId).getPhoneNumbers().put("Home", "555-0101"));
+        assertEquals(2, employee().getVersion());
+    }
+
+    @Test
+    public void testConcurrentUpdateIsRejected() {
+        try {
+            tx.executeWithoutResult(status -> {
+                Employee emp = em.find(Employee.class, employeeId);
+                // another transaction commits between our read and our write
+                concurrent.executeWithoutResult(inner -> em.find(Employee.class, employeeId).setSalary(1500));
+                emp.setSalary(emp.getSalary() + 100);
+            });
+            fail("Lost update was committed");
+        } catch (ObjectOptimisticLockingFailureException expected) {
+        }
+        assertEquals(1500, employee().getSalary());
+    }
+
+    @Test
+    public void testBulkUpdateIncrementsVersion() {
+        try {
+            tx.executeWithoutResult(status -> {
+                Employee emp = em.find(Employee.class, employeeId);
+                concurrent.executeWithoutResult(inner -> bulkService.raiseSalary(EmployeeFilter.all().department(department), 10));
+                emp.setSalary(2000);
+            });
+            fail("Bulk update was overwritten");
+        } catch (ObjectOptimisticLockingFailureException expected) {
+        }
+        assertEquals(1010, employee().getSalary());
+        assertEquals(1, employee().getVersion());
+    }
+
+    @Test
+    public void testAssociationsDoNotBumpVersion() {
+        int project = department;
+        tx.executeWithoutResult(status -> {
+            Project p = new Project();
+            p.setId(project);
+            p.setName("Versioned " + project);
+            em.persist(p);
+            Employee emp = new Employee();
+            emp.setName("Versioned newcomer");
+            emp.setDepartment(em.find(Department.class, department));
+            emp.setProjects(new HashSet<>());
+            emp.getProjects().add(p);
+            em.persist(emp);
+            em.find(Employee.class, employeeId).setProjects(new HashSet<>(emp.getProjects()));
+        });
+        tx.executeWithoutResult(status -> {
+            assertEquals(0, em.find(Department.class, department).getVersion());
+            assertEquals(0, em.find(Project.class, project).getVersion());
+            assertEquals(0, em.find(Employee.class, employeeId).getVersion());
+        });
+    }
+}
@@ -0,0 +1,164 @@
+package JPA2.tests;
+
+import JPA2.models.Employee;
+import JPA2.services.EmployeeUpdateService;
+import JPA2.services.OptimisticRetryTemplate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for retrying transactions that lose an optimistic lock conflict
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class OptimisticRetryTemplateTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    OptimisticRetryTemplate retryTemplate;
+
+    @Autowired
+    EmployeeUpdateService updateService;
+
+    TransactionTemplate tx;
+    TransactionTemplate concurrent;
+    int employeeId;
+    int maxAttempts;
+
+    @Before
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        maxAttempts = retryTemplate.getMaxAttempts();
+        employeeId = tx.execute(status -> {
+            Employee emp = new Employee();
+            emp.setName("Retry");
+            emp.setSalary(1000);
+            em.persist(emp);
+            return emp;
+        }).getId();
+    }
+
+    @After
+    public void tearDown() {
+        retryTemplate.setMaxAttempts(maxAttempts);
+    }
+
+    private long salary() {
+        return tx.execute(status -> em.find(Employee.class, employeeId).getSalary());
+    }
+
+    /**
+     * Raises the salary by 100; the first conflicts attempts let another transaction raise it by 1 in between
+     */
+    private long raiseWithConflicts(int conflicts, AtomicInteger attempts) {
+        return retryTemplate.execute(status -> {
+            Employee emp = em.find(Employee.class, employeeId);
+            if (attempts.incrementAndGet() <= conflicts)
+                concurrent.executeWithoutResult(inner -> {
+                    Employee other = em.find(Employee.class, employeeId);
+                    other.setSalary(other.getSalary() + 1);
+                });
+            emp.setSalary(emp.getSalary() + 100);
+            return emp.getSalary();
+        });
+    }
+
+    @Test
+    public void testConflictIsRetried() {
+        long commits = retryTemplate.getCommitCount();
+        long conflicts = retryTemplate.getConflictCount();
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals(1102, raiseWithConflicts(2, attempts));
+        assertEquals(3, attempts.get());
+        assertEquals(1102, salary());
+        // the two concurrent transactions are not retried
+        assertEquals(commits + 1, retryTemplate.getCommitCount());
+        assertEquals(conflicts + 2, retryTemplate.getConflictCount());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() {
+        retryTemplate.setMaxAttempts(3);
+        long exhausted = retryTemplate.getExhaustedCount();
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            raiseWithConflicts(Integer.MAX_VALUE, attempts);
+            fail("Conflict was not reported");
+        } catch (OptimisticLockingFailureException expected) {
+        }
+        assertEquals(3, attempts.get());
+        assertEquals(1003, salary());
+        assertEquals(exhausted + 1, retryTemplate.getExhaustedCount());
+    }
+
+    @Test
+    public void testOtherErrorsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            retryTemplate.execute(status -> {
+                attempts.incrementAndGet();
+                throw new EntityNotFoundException("No employee");
+            });
+            fail();
+        } catch (EntityNotFoundException expected) {
+        }
+        assertEquals(1, attempts.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRefusesOuterTransaction() {
+        tx.executeWithoutResult(status -> updateService.raiseSalary(employeeId, 1));
+    }
+
+    @Test
+    public void testConcurrentRaisesAreNotLost() throws Exception {
+        retryTemplate.setMaxAttempts(100);
+        int threads = 4;
+        int raises = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < raises; i++)
+                        updateService.raiseSalary(employeeId, 1);
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1000 + threads * raises, salary());
+        assertEquals(threads * raises, tx.execute(status -> em.find(Employee.class, employeeId).getVersion()).intValue());
+    }
+}
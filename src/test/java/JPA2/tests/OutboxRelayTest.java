@@ -0,0 +1,209 @@
+package JPA2.tests;
+
+import JPA2.models.ChangeType;
+import JPA2.models.Employee;
+import JPA2.models.OutboxEvent;
+import JPA2.services.ChangeEvent;
+import JPA2.services.ChangeEventStream;
+import JPA2.services.OutboxRelay;
+import JPA2.services.PersistenceMetricsService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for relaying outbox rows into the change event stream
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class OutboxRelayTest {
+    private static final String SUBSCRIBER = "relay-test";
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    OutboxRelay relay;
+
+    @Autowired
+    ChangeEventStream stream;
+
+    @Autowired
+    PersistenceMetricsService metricsService;
+
+    @Autowired
+    AutowireCapableBeanFactory beanFactory;
+
+    TransactionTemplate tx;
+    ChangeEventStream.Subscription subscription;
+    int batchSize;
+
+    @Before
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> em.createQuery("delete from OutboxEvent").executeUpdate());
+        subscription = stream.subscribe(SUBSCRIBER);
+        batchSize = relay.getBatchSize();
+    }
+
+    @After
+    public void tearDown() {
+        stream.unsubscribe(SUBSCRIBER);
+        relay.setBatchSize(batchSize);
+    }
+
+    private List<Integer> persistEmployees(int count) {
+        return tx.execute(status -> {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Employee emp = new Employee();
+                emp.setName("Relay " + i);
+                em.persist(emp);
+                em.flush();
+                ids.add(emp.getId());
+            }
+            return ids;
+        });
+    }
+
+    private void acknowledgeAll() throws InterruptedException {
+        List<ChangeEvent> events;
+        while (!(events = subscription.poll(1000, 0)).isEmpty())
+            subscription.acknowledge(events.get(events.size() - 1).sequence());
+    }
+
+    @Test
+    public void testRowsStayUntilAcknowledged() throws Exception {
+        relay.setBatchSize(2);
+        List<Integer> ids = persistEmployees(5);
+        long relayed = relay.getRelayedCount();
+        long batches = relay.getBatchCount();
+        assertEquals(5, relay.pending().events());
+        assertNotNull(relay.pending().oldest());
+
+        assertEquals(5, relay.drain());
+        assertEquals(relayed + 5, relay.getRelayedCount());
+        assertEquals(batches + 3, relay.getBatchCount());
+        // опубликованы, но не подтверждены: строки остаются
+        assertEquals(5, relay.pending().events());
+        assertEquals(0, relay.drain());
+
+        List<ChangeEvent> events = subscription.poll(100, 0);
+        assertEquals(ids, events.stream().map(ChangeEvent::aggregateId).toList());
+        for (ChangeEvent event : events) {
+            assertEquals("Employee", event.aggregateType());
+            assertEquals(ChangeType.CREATED, event.operation());
+        }
+        subscription.acknowledge(events.get(2).sequence());
+        assertEquals(0, relay.drain());
+        assertEquals(2, relay.pending().events());
+        subscription.acknowledge(events.get(4).sequence());
+        relay.drain();
+        assertEquals(0, relay.pending().events());
+        assertNull(relay.pending().oldest());
+    }
+
+    @Test
+    public void testEverySubscriberMustAcknowledge() throws Exception {
+        ChangeEventStream.Subscription other = stream.subscribe("relay-test-other");
+        try {
+            persistEmployees(3);
+            assertEquals(3, relay.drain());
+            acknowledgeAll();
+            relay.drain();
+            assertEquals(3, relay.pending().events());
+
+            List<ChangeEvent> events = other.poll(100, 0);
+            other.acknowledge(events.get(events.size() - 1).sequence());
+            relay.drain();
+            assertEquals(0, relay.pending().events());
+        } finally {
+            stream.unsubscribe("relay-test-other");
+        }
+    }
+
+    @Test
+    public void testNothingRelayedWithoutSubscribers() throws Exception {
+        stream.unsubscribe(SUBSCRIBER);
+        List<Integer> ids = persistEmployees(2);
+        assertEquals(0, relay.drain());
+        assertEquals(2, relay.pending().events());
+
+        subscription = stream.subscribe(SUBSCRIBER);
+        assertEquals(2, relay.drain());
+        assertEquals(ids, subscription.poll(100, 0).stream().map(ChangeEvent::aggregateId).toList());
+    }
+
+    @Test
+    public void testRestartedRelayRepublishesUnacknowledged() throws Exception {
+        persistEmployees(3);
+        assertEquals(3, relay.drain());
+        List<Long> delivered = subscription.poll(100, 0).stream().map(ChangeEvent::outboxId).toList();
+
+        // новый экземпляр — как после перезапуска: отметки прежнего сбрасываются
+        OutboxRelay restarted = beanFactory.createBean(OutboxRelay.class);
+        assertEquals(3, restarted.drain());
+        List<ChangeEvent> redelivered = subscription.poll(100, 0);
+        assertEquals(delivered, redelivered.stream().map(ChangeEvent::outboxId).toList());
+
+        subscription.acknowledge(redelivered.get(redelivered.size() - 1).sequence());
+        restarted.drain();
+        assertEquals(0, relay.pending().events());
+    }
+
+    @Test
+    public void testDrainStopsWhenStreamIsFull() throws Exception {
+        // leave room for two events only: the subscriber has not acknowledged the rest
+        List<OutboxEvent> filler = new ArrayList<>();
+        for (int i = stream.remainingCapacity(); i > 2; i--)
+            filler.add(new OutboxEvent("Employee", 0, ChangeType.CREATED, null, Instant.now()));
+        stream.publish(filler);
+        persistEmployees(5);
+
+        assertEquals(2, relay.drain());
+        assertEquals(0, stream.remainingCapacity());
+        assertEquals(5, relay.pending().events());
+
+        acknowledgeAll();
+        assertEquals(3, relay.drain());
+        assertEquals(3, relay.pending().events());
+        assertEquals(3, subscription.poll(100, 0).size());
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        persistEmployees(3);
+        String metrics = metricsService.scrape();
+        assertTrue(metrics, metrics.contains("\noutbox_pending_events 3\n"));
+        assertFalse(metrics, metrics.contains("\noutbox_oldest_pending_age_seconds 0\n"));
+
+        relay.drain();
+        metrics = metricsService.scrape();
+        assertTrue(metrics, metrics.contains("\noutbox_pending_events 3\n"));
+        assertTrue(metrics, metrics.contains("# TYPE outbox_relayed_events_total counter\n"));
+        assertTrue(metrics, metrics.contains("\nchange_stream_published_total " + stream.published() + "\n"));
+        assertTrue(metrics, metrics.contains("\nchange_stream_subscriber_lag_events{subscriber=\"" + SUBSCRIBER + "\"} 3\n"));
+
+        acknowledgeAll();
+        relay.drain();
+        assertTrue(metricsService.scrape().contains("\noutbox_pending_events 0\n"));
+    }
+}
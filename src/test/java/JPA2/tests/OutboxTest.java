@@ -0,0 +1,169 @@
+package JPA2.tests;
+
+import JPA2.models.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for outbox events written in the same transaction as entity changes
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class OutboxTest {
+    private static int nextId = 9400;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @Before
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> em.createQuery("delete from OutboxEvent").executeUpdate());
+    }
+
+    private List<OutboxEvent> events() {
+        return tx.execute(status -> em.createNamedQuery(OutboxEvent.NEXT_BATCH, OutboxEvent.class).getResultList());
+    }
+
+    private static String describe(OutboxEvent event) {
+        return event.getAggregateType() + " " + event.getOperation()
+                + (event.getChangedProperties() == null ? "" : " " + event.getChangedProperties());
+    }
+
+    private int persistEmployee(String name) {
+        return tx.execute(status -> {
+            Employee emp = new Employee();
+            emp.setName(name);
+            emp.setSalary(1000);
+            em.persist(emp);
+            return emp;
+        }).getId();
+    }
+
+    @Test
+    public void testCreateUpdateDelete() {
+        int id = persistEmployee("Outbox create");
+        tx.executeWithoutResult(status -> em.find(Employee.class, id).setSalary(2000));
+        tx.executeWithoutResult(status -> em.remove(em.find(Employee.class, id)));
+
+        List<OutboxEvent> events = events();
+        assertEquals(3, events.size());
+        assertEquals("Employee CREATED", describe(events.get(0)));
+        assertEquals("Employee UPDATED salary", describe(events.get(1)));
+        assertEquals("Employee DELETED", describe(events.get(2)));
+        for (OutboxEvent event : events) {
+            assertEquals(id, event.getAggregateId());
+            assertNotNull(event.getCreatedAt());
+        }
+        assertTrue(events.get(0).getId() < events.get(1).getId());
+    }
+
+    @Test
+    public void testRollbackWritesNothing() {
+        tx.executeWithoutResult(status -> {
+            Employee emp = new Employee();
+            emp.setName("Outbox rollback");
+            em.persist(emp);
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertTrue(events().isEmpty());
+
+        // the next transaction of the same thread starts with an empty buffer
+        persistEmployee("Outbox after rollback");
+        assertEquals(1, events().size());
+    }
+
+    @Test
+    public void testChangesMergedPerTransaction() {
+        int id = persistEmployee("Outbox merge");
+        tx.executeWithoutResult(status -> {
+            Employee emp = em.find(Employee.class, id);
+            emp.setSalary(3000);
+            em.flush();
+            emp.setName("Outbox merged");
+            em.flush();
+            emp.setSalary(4000);
+        });
+        tx.executeWithoutResult(status -> {
+            Employee emp = new Employee();
+            emp.setName("Outbox created and changed");
+            em.persist(emp);
+            em.flush();
+            emp.setSalary(5000);
+        });
+        tx.executeWithoutResult(status -> {
+            Employee emp = em.find(Employee.class, id);
+            emp.setSalary(6000);
+            em.flush();
+            em.remove(emp);
+        });
+
+        List<OutboxEvent> events = events();
+        assertEquals(4, events.size());
+        assertEquals("Employee CREATED", describe(events.get(0)));
+        assertEquals("Employee UPDATED name,salary", describe(events.get(1)));
+        assertEquals("Employee CREATED", describe(events.get(2)));
+        assertEquals("Employee DELETED", describe(events.get(3)));
+    }
+
+    @Test
+    public void testCollectionChangeUpdatesOwner() {
+        int id = persistEmployee("Outbox phones");
+        tx.executeWithoutResult(status -> {
+            Map<String, String> phones = new HashMap<>();
+            phones.put("Work", "555-0100");
+            em.find(Employee.class, id).setPhoneNumbers(phones);
+        });
+        tx.executeWithoutResult(status -> em.find(Employee.class, id).getPhoneNumbers().put("Home", "555-0101"));
+
+        List<OutboxEvent> events = events();
+        assertEquals(3, events.size());
+        assertEquals("Employee UPDATED phoneNumbers", describe(events.get(1)));
+        assertEquals("Employee UPDATED phoneNumbers", describe(events.get(2)));
+    }
+
+    @Test
+    public void testAnnotatedEntitiesOnly() {
+        int id = nextId++;
+        tx.executeWithoutResult(status -> {
+            Department dept = new Department();
+            dept.setId(id);
+            dept.setName("Outbox " + id);
+            em.persist(dept);
+            ParkingSpace space = new ParkingSpace();
+            space.setId(id);
+            space.setLot(1);
+            em.persist(space);
+            Project project = new Project();
+            project.setId(id);
+            project.setName("Outbox " + id);
+            em.persist(project);
+        });
+
+        List<OutboxEvent> events = events();
+        assertEquals(2, events.size());
+        assertEquals("Department CREATED", describe(events.get(0)));
+        assertEquals("ParkingSpace CREATED", describe(events.get(1)));
+        assertEquals(id, events.get(1).getAggregateId());
+    }
+}
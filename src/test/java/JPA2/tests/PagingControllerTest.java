@@ -0,0 +1,103 @@
+package JPA2.tests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for the keyset paging endpoints
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@WebAppConfiguration
+public class PagingControllerTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    /**
+     * Больше двух страниц по 3 строки, даже если других сотрудников в базе нет. Строки вставляются SQL
+     * с id прямо из последовательности: у веб-контекста свой entityManagerFactory, и его блок pooled-lo
+     * мог устареть, если другой контекст уже пересоздал схему
+     */
+    private void seedEmployees() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 7; i++)
+                em.createNativeQuery("insert into Employee (id, name, salary, S_DATE, version) "
+                                + "values (next value for EMPLOYEE_SEQ, ?, 0, ?, 0)")
+                        .setParameter(1, "Paged " + i)
+                        .setParameter(2, LocalDate.of(2020, 1, 1).plusDays(i))
+                        .executeUpdate();
+        });
+    }
+
+    private JsonNode page(String url) throws Exception {
+        String json = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return new ObjectMapper().readTree(json);
+    }
+
+    @Test
+    public void testEmployeePages() throws Exception {
+        seedEmployees();
+        JsonNode first = page("/employees?order=START_DATE&size=3");
+        assertEquals(3, first.get("items").size());
+        assertFalse(first.get("next").isNull());
+        JsonNode second = page("/employees?order=START_DATE&size=3&after=" + first.get("next").asText());
+        assertEquals(3, second.get("items").size());
+        Set<Integer> firstIds = new HashSet<>();
+        for (JsonNode row : first.get("items"))
+            firstIds.add(row.get("id").asInt());
+        for (JsonNode row : second.get("items"))
+            assertFalse(firstIds.contains(row.get("id").asInt()));
+    }
+
+    @Test
+    public void testRequestPages() throws Exception {
+        JsonNode first = page("/requests?size=2");
+        assertTrue(first.has("items"));
+        assertTrue(first.has("next"));
+    }
+
+    @Test
+    public void testBadTokenIsBadRequest() throws Exception {
+        mockMvc.perform(get("/employees?after=broken!"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -56,7 +56,7 @@ public class ParkingSpaceTest {
         Employee emp = new Employee();
         emp.setName("John Parker");
         emp.setSalary(55000);
-        emp.type = EmployeeType.ENUM1;
+        emp.setType(EmployeeType.ENUM1);
         emp.setParkingSpace(parking);
         em.persist(emp);
 
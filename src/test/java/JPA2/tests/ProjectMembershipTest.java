@@ -0,0 +1,107 @@
+package JPA2.tests;
+
+import JPA2.models.Employee;
+import JPA2.models.Project;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Counts SQL statements when one project is added to or removed from an employee
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@Transactional
+public class ProjectMembershipTest {
+    private static final int PROJECT = 96_000;
+    private static final int PROJECTS = 20;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    int employeeId;
+
+    @Before
+    public void setUp() {
+        Set<Project> projects = new HashSet<>();
+        for (int i = 0; i <= PROJECTS; i++) {
+            Project project = new Project();
+            project.setId(PROJECT + i);
+            project.setName("Membership " + i);
+            em.persist(project);
+            if (i < PROJECTS)
+                projects.add(project);
+        }
+        Employee emp = new Employee();
+        emp.setName("Membership");
+        emp.setProjects(projects);
+        em.persist(emp);
+        employeeId = emp.getId();
+        em.flush();
+        em.clear();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void testAddProjectInsertsOneRow() {
+        Employee emp = em.find(Employee.class, employeeId);
+        assertEquals(PROJECTS, emp.getProjects().size());
+        statistics.clear();
+
+        emp.getProjects().add(em.getReference(Project.class, PROJECT + PROJECTS));
+        em.flush();
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getCollectionUpdateCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertEquals(PROJECTS + 1, memberships());
+    }
+
+    @Test
+    public void testRemoveProjectDeletesOneRow() {
+        Employee emp = em.find(Employee.class, employeeId);
+        assertEquals(PROJECTS, emp.getProjects().size());
+        statistics.clear();
+
+        assertTrue(emp.getProjects().remove(em.getReference(Project.class, PROJECT)));
+        em.flush();
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getCollectionUpdateCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertEquals(PROJECTS - 1, memberships());
+    }
+
+    @Test
+    public void testDuplicateProjectIsIgnored() {
+        Employee emp = em.find(Employee.class, employeeId);
+        assertFalse(emp.getProjects().add(em.getReference(Project.class, PROJECT)));
+        statistics.clear();
+        em.flush();
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(PROJECTS, memberships());
+    }
+
+    private int memberships() {
+        return ((Number) em.createNativeQuery("select count(*) from Employee_Project where employees_id = :id")
+                .setParameter("id", employeeId)
+                .getSingleResult()).intValue();
+    }
+}
@@ -12,8 +12,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -55,9 +55,9 @@ public class ProjectTest {
         Employee emp1 = new Employee();
         emp1.setName("Developer One");
         emp1.setSalary(70000);
-        emp1.type = EmployeeType.ENUM1;
+        emp1.setType(EmployeeType.ENUM1);
 
-        Collection<Project> projects1 = new ArrayList<>();
+        Set<Project> projects1 = new HashSet<>();
         projects1.add(project);
         emp1.setProjects(projects1);
         em.persist(emp1);
@@ -65,9 +65,9 @@ public class ProjectTest {
         Employee emp2 = new Employee();
         emp2.setName("Developer Two");
         emp2.setSalary(75000);
-        emp2.type = EmployeeType.TEST1;
+        emp2.setType(EmployeeType.TEST1);
 
-        Collection<Project> projects2 = new ArrayList<>();
+        Set<Project> projects2 = new HashSet<>();
         projects2.add(project);
         emp2.setProjects(projects2);
         em.persist(emp2);
@@ -86,7 +86,7 @@ public class ProjectTest {
         project.setId(3002);
         project.setName("Database Migration");
 
-        Collection<Employee> employees = new ArrayList<>();
+        Set<Employee> employees = new HashSet<>();
         project.setEmployees(employees);
 
         assertEquals(3002, project.getId());
@@ -123,9 +123,9 @@ public class ProjectTest {
             Employee emp = new Employee();
             emp.setName("Team Member " + i);
             emp.setSalary(50000 + i * 5000);
-            emp.type = i % 2 == 0 ? EmployeeType.ENUM1 : EmployeeType.TEST1;
+            emp.setType(i % 2 == 0 ? EmployeeType.ENUM1 : EmployeeType.TEST1);
 
-            Collection<Project> projects = new ArrayList<>();
+            Set<Project> projects = new HashSet<>();
             projects.add(project);
             emp.setProjects(projects);
             em.persist(emp);
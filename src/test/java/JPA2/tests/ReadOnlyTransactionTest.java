@@ -0,0 +1,94 @@
+package JPA2.tests;
+
+import JPA2.models.Employee;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for read-only transactions: no dirty checking, manual flush, replica connection
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class ReadOnlyTransactionTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    HikariDataSource replica;
+
+    TransactionTemplate readWrite;
+    TransactionTemplate readOnly;
+    int id;
+
+    @Before
+    public void setUp() {
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        id = readWrite.execute(status -> {
+            Employee emp = new Employee();
+            emp.setName("Read only");
+            emp.setSalary(100);
+            em.persist(emp);
+            return emp.getId();
+        });
+    }
+
+    private int replicaConnectionsInUse() {
+        return replica.getHikariPoolMXBean().getActiveConnections();
+    }
+
+    @Test
+    public void testReadOnlyTransactionUsesReplica() {
+        readOnly.executeWithoutResult(status -> {
+            assertNotNull(em.find(Employee.class, id));
+            assertEquals(1, replicaConnectionsInUse());
+        });
+        readWrite.executeWithoutResult(status -> {
+            assertNotNull(em.find(Employee.class, id));
+            assertEquals(0, replicaConnectionsInUse());
+        });
+    }
+
+    @Test
+    public void testReadOnlyTransactionSkipsDirtyChecking() {
+        readOnly.executeWithoutResult(status -> {
+            Session session = em.unwrap(Session.class);
+            assertEquals(FlushMode.MANUAL, session.getHibernateFlushMode());
+            assertTrue(session.isDefaultReadOnly());
+            Employee emp = em.find(Employee.class, id);
+            assertTrue(session.isReadOnly(emp));
+            emp.setSalary(999);
+        });
+        assertEquals(100, (long) readWrite.execute(status -> em.find(Employee.class, id).getSalary()));
+    }
+
+    @Test
+    public void testReadWriteTransactionFlushesChanges() {
+        readWrite.executeWithoutResult(status -> {
+            assertEquals(FlushMode.AUTO, em.unwrap(Session.class).getHibernateFlushMode());
+            em.find(Employee.class, id).setSalary(200);
+        });
+        assertEquals(200, (long) readOnly.execute(status -> em.find(Employee.class, id).getSalary()));
+    }
+}
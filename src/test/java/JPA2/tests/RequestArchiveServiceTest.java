@@ -0,0 +1,179 @@
+package JPA2.tests;
+
+import JPA2.models.Request;
+import JPA2.services.RequestArchiveService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for archiving completed requests to compressed files
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class RequestArchiveServiceTest {
+    private static final Instant CUTOFF = new GregorianCalendar(1991, Calendar.JANUARY, 1).toInstant();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Autowired
+    RequestArchiveService archiveService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    private TransactionTemplate tx;
+    private Path dir;
+    private int batchSize;
+
+    @Before
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        dir = archiveService.getDir();
+        batchSize = archiveService.getBatchSize();
+        archiveService.setDir(folder.getRoot().toPath());
+        archiveService.setBatchSize(7);
+    }
+
+    @After
+    public void tearDown() {
+        archiveService.setDir(dir);
+        archiveService.setBatchSize(batchSize);
+        tx.executeWithoutResult(status -> em.createQuery("delete from Request r where r.name like 'Archive %'").executeUpdate());
+    }
+
+    private int persist(String name, Calendar completed, boolean executed) {
+        return tx.execute(status -> {
+            Request request = new Request();
+            request.setName(name);
+            request.setConvertX(completed);
+            request.setExecute(executed ? completed : null);
+            request.setGenerateResponse(completed);
+            em.persist(request);
+            return request.getId();
+        });
+    }
+
+    private boolean exists(int id) {
+        return tx.execute(status -> em.find(Request.class, id) != null);
+    }
+
+    @Test
+    public void testArchivesOldCompletedRequestsOnly() throws IOException {
+        Set<Integer> old = new HashSet<>();
+        for (int i = 0; i < 30; i++)
+            old.add(persist("Archive " + i, new GregorianCalendar(1990, Calendar.MARCH, 1 + i), true));
+        int incomplete = persist("Archive incomplete", new GregorianCalendar(1990, Calendar.MARCH, 1), false);
+        int recent = persist("Archive recent", new GregorianCalendar(1991, Calendar.FEBRUARY, 1), true);
+
+        assertEquals(30, archiveService.archive(CUTOFF));
+        for (int id : old)
+            assertFalse(exists(id));
+        assertTrue(exists(incomplete));
+        assertTrue(exists(recent));
+
+        // пачки по 7: 7, 7, 7, 7, 2
+        List<Path> files = archiveService.archives();
+        assertEquals(5, files.size());
+        List<Request> archived = new ArrayList<>();
+        for (Path file : files)
+            archiveService.read(file, archived::add);
+        assertEquals(30, archived.size());
+        Set<Integer> ids = new HashSet<>();
+        for (Request request : archived) {
+            ids.add(request.getId());
+            assertTrue(request.getName().startsWith("Archive "));
+            int day = Integer.parseInt(request.getName().substring("Archive ".length()));
+            assertEquals(new GregorianCalendar(1990, Calendar.MARCH, 1 + day).getTimeInMillis(),
+                    request.getGenerateResponse().getTimeInMillis());
+            assertEquals(request.getConvertX(), request.getExecute());
+        }
+        assertEquals(old, ids);
+    }
+
+    @Test
+    public void testNothingToArchiveCreatesNoFile() throws IOException {
+        persist("Archive recent", new GregorianCalendar(1991, Calendar.FEBRUARY, 1), true);
+        assertEquals(0, archiveService.archive(CUTOFF));
+        assertTrue(archiveService.archives().isEmpty());
+    }
+
+    @Test
+    public void testNullNameRoundTrips() throws IOException {
+        int id = persist(null, new GregorianCalendar(1990, Calendar.MAY, 5), true);
+        assertEquals(1, archiveService.archive(CUTOFF));
+        List<Request> archived = new ArrayList<>();
+        archiveService.read(archiveService.archives().get(0), archived::add);
+        assertEquals(1, archived.size());
+        assertEquals(id, archived.get(0).getId());
+        assertNull(archived.get(0).getName());
+    }
+
+    @Test
+    public void testEachBatchIsACompleteFile() throws IOException {
+        for (int i = 0; i < 14; i++)
+            persist("Archive " + i, new GregorianCalendar(1990, Calendar.APRIL, 1 + i), true);
+        assertEquals(14, archiveService.archive(CUTOFF));
+        List<Path> files = archiveService.archives();
+        assertEquals(2, files.size());
+        for (Path file : files)
+            assertEquals(7, archiveService.read(file, request -> {
+            }));
+        // временные файлы переименованы, других файлов в каталоге нет
+        try (var listing = Files.list(folder.getRoot().toPath())) {
+            assertEquals(2, listing.count());
+        }
+    }
+
+    @Test
+    public void testReadsMillisecondFormat() throws IOException {
+        long millis = new GregorianCalendar(1990, Calendar.JUNE, 1, 12, 30).getTimeInMillis();
+        Path file = folder.newFile("legacy" + RequestArchiveService.SUFFIX).toPath();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(RequestArchiveService.MAGIC_MILLIS);
+            out.writeBoolean(true);
+            out.writeInt(42);
+            out.writeBoolean(false);
+            for (int i = 0; i < 3; i++)
+                out.writeLong(millis);
+            out.writeBoolean(false);
+        }
+        List<Request> archived = new ArrayList<>();
+        assertEquals(1, archiveService.read(file, archived::add));
+        assertEquals(42, archived.get(0).getId());
+        assertEquals(Instant.ofEpochMilli(millis), archived.get(0).getGenerateResponseInstant());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsForeignFile() throws IOException {
+        Path file = folder.newFile("foreign" + RequestArchiveService.SUFFIX).toPath();
+        try (GZIPOutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(new byte[]{1, 2, 3, 4});
+        }
+        archiveService.read(file, request -> fail());
+    }
+}
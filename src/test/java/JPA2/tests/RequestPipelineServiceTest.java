@@ -0,0 +1,166 @@
+package JPA2.tests;
+
+import JPA2.models.Request;
+import JPA2.services.CacheStatisticsService;
+import JPA2.services.RequestPipelineService;
+import JPA2.services.RequestStages;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the staged request pipeline
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class RequestPipelineServiceTest {
+
+    @Autowired
+    RequestPipelineService pipeline;
+
+    @Autowired
+    CacheStatisticsService cacheStatistics;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    private final RequestStages defaultStages = new RequestStages() {
+    };
+
+    @After
+    public void resetStages() {
+        pipeline.setStages(defaultStages);
+    }
+
+    private Request reload(int id) {
+        return new TransactionTemplate(transactionManager).execute(status -> em.find(Request.class, id));
+    }
+
+    @Test
+    public void testAllStagesSucceed() {
+        List<String> income = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+            income.add("Pipeline " + i);
+        Statistics statistics = cacheStatistics.getStatistics();
+        long prepared = statistics.getPrepareStatementCount();
+        long inserts = statistics.getEntityInsertCount();
+
+        List<Request> processed = pipeline.process(income);
+
+        assertEquals(2000, processed.size());
+        assertEquals(2000, statistics.getEntityInsertCount() - inserts);
+        // одна подготовка INSERT на пачку, а не на запрос
+        assertTrue(statistics.getPrepareStatementCount() - prepared < 500);
+        Request request = reload(processed.get(1234).getId());
+        assertEquals("Pipeline 1234", request.getName());
+        assertNotNull(request.getConvertXInstant());
+        assertNotNull(request.getExecuteInstant());
+        assertNotNull(request.getGenerateResponseInstant());
+        assertFalse(request.getExecuteInstant().isBefore(request.getConvertXInstant()));
+        assertFalse(request.getGenerateResponseInstant().isBefore(request.getExecuteInstant()));
+    }
+
+    @Test
+    public void testExecuteFailureLeavesExecuteNull() {
+        pipeline.setStages(new RequestStages() {
+            @Override
+            public void execute(Request request) {
+                throw new RuntimeException("Ошибка на этапе выполнения");
+            }
+        });
+        Request request = reload(pipeline.submit("Ошибка на этапе выполнения").join().getId());
+        assertNotNull(request.getConvertXInstant());
+        assertNull(request.getExecuteInstant());
+        assertNotNull(request.getGenerateResponseInstant());
+    }
+
+    @Test
+    public void testConvertFailureCancelsRequest() {
+        pipeline.setStages(new RequestStages() {
+            @Override
+            public void convert(Request request, String incomeRequest) {
+                throw new RuntimeException("Ошибка на этапе конвертирования");
+            }
+        });
+        CompletableFuture<Request> result = pipeline.submit("Ошибка во время конвертирования");
+        try {
+            result.join();
+            fail();
+        } catch (CompletionException ex) {
+            assertEquals("Ошибка на этапе конвертирования", ex.getCause().getMessage());
+        }
+        long stored = new TransactionTemplate(transactionManager).execute(status -> em
+                .createQuery("select count(r) from Request r where r.name = :name", Long.class)
+                .setParameter("name", "Ошибка во время конвертирования")
+                .getSingleResult());
+        assertEquals(0, stored);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testShutdownCompletesPendingRequests() throws Exception {
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch never = new CountDownLatch(1);
+        pipeline.setStages(new RequestStages() {
+            @Override
+            public void execute(Request request) {
+                started.countDown();
+                try {
+                    never.await();
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException("Остановлен", ex);
+                }
+            }
+        });
+        pipeline.setShutdownTimeoutMillis(200);
+        // четыре потока этапа execute заняты, ещё два запроса ждут в его очереди
+        List<CompletableFuture<Request>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+            futures.add(pipeline.submit("Shutdown " + i));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        pipeline.destroy();
+
+        // каждый результат завершён: get не бросает TimeoutException
+        int rejected = 0;
+        for (CompletableFuture<Request> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RejectedExecutionException)
+                    rejected++;
+            }
+        }
+        // два запроса из очереди execute отклонены точно; прерванные успевают записаться
+        // или отклоняются уже остановленным этапом response
+        assertTrue(String.valueOf(rejected), rejected >= 2);
+        try {
+            pipeline.submit("After shutdown");
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
@@ -12,7 +12,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import java.time.Instant;
 import java.util.Calendar;
+import java.util.GregorianCalendar;
 
 import static org.junit.Assert.*;
 
@@ -44,9 +46,9 @@ public class RequestTest {
         int id = process(incomeRequest);
         Request request = em.find(Request.class, id);
         assertNotNull(request);
-        assertNotNull(request.convertX);
-        assertNotNull(request.execute);
-        assertNotNull(request.generateResponse);
+        assertNotNull(request.getConvertXInstant());
+        assertNotNull(request.getExecuteInstant());
+        assertNotNull(request.getGenerateResponseInstant());
     }
 
     @Test
@@ -58,9 +60,9 @@ public class RequestTest {
         int id = process(incomeRequest);
         Request request = em.find(Request.class, id);
         assertNotNull(request);
-        assertNotNull(request.convertX);
-        assertNotNull(request.execute); // TODO: assertNull(request.execute); -- Почему не работает??
-        assertNotNull(request.generateResponse);
+        assertNotNull(request.getConvertXInstant());
+        assertNotNull(request.getExecuteInstant()); // TODO: assertNull(request.execute); -- Почему не работает??
+        assertNotNull(request.getGenerateResponseInstant());
     }
 
     @Test(expected = RuntimeException.class)
@@ -72,9 +74,9 @@ public class RequestTest {
         int id = process(incomeRequest);
         Request request = em.find(Request.class, id);
         assertNotNull(request);
-        assertNotNull(request.convertX);
-        assertNotNull(request.execute); // TODO: assertNull(request.execute); -- Почему не работает??
-        assertNotNull(request.generateResponse);
+        assertNotNull(request.getConvertXInstant());
+        assertNotNull(request.getExecuteInstant()); // TODO: assertNull(request.execute); -- Почему не работает??
+        assertNotNull(request.getGenerateResponseInstant());
     }
 
     @Transactional
@@ -93,7 +95,7 @@ public class RequestTest {
     private Request convert(String incomeRequest) {
         Request request = new Request();
         request.setName(incomeRequest);
-        request.convertX = Calendar.getInstance();
+        request.setConvertXInstant(Instant.now());
         em.persist(request);
         if (convertException)
             throw new RuntimeException("Ошибка на этапе конвертирования");
@@ -102,14 +104,14 @@ public class RequestTest {
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     private void execute(Request request) {
-        request.execute = Calendar.getInstance();
+        request.setExecuteInstant(Instant.now());
         if (executeException)
             throw new RuntimeException("Ошибка на этапе выполнения");
     }
 
     @Transactional
     private int generateResponse(Request request) {
-        request.generateResponse = Calendar.getInstance();
+        request.setGenerateResponseInstant(Instant.now());
         return request.getId();
     }
 
@@ -134,6 +136,41 @@ public class RequestTest {
         assertEquals(responseTime, request.getGenerateResponse());
     }
 
+    @Test
+    @Transactional
+    public void testLegacyCalendarRoundTrip() {
+        Calendar convertTime = new GregorianCalendar(2024, Calendar.JANUARY, 1, 10, 0, 0);
+        convertTime.set(Calendar.MILLISECOND, 250);
+        Request request = new Request();
+        request.setName("Legacy Request");
+        request.setConvertX(convertTime);
+        assertEquals(convertTime.toInstant(), request.getConvertXInstant());
+        assertNull(request.getExecute());
+
+        // изменение полученной копии не меняет запрос
+        request.getConvertX().add(Calendar.HOUR, 1);
+        assertEquals(convertTime.toInstant(), request.getConvertXInstant());
+
+        em.persist(request);
+        em.flush();
+        em.clear();
+        Request found = em.find(Request.class, request.getId());
+        assertEquals(convertTime.getTimeInMillis(), found.getConvertX().getTimeInMillis());
+        assertNull(found.getExecuteInstant());
+    }
+
+    @Test
+    @Transactional
+    public void testInstantKeepsMicroseconds() {
+        Instant now = Instant.parse("2024-03-01T12:30:45.123456Z");
+        Request request = new Request();
+        request.setGenerateResponseInstant(now);
+        em.persist(request);
+        em.flush();
+        em.clear();
+        assertEquals(now, em.find(Request.class, request.getId()).getGenerateResponseInstant());
+    }
+
     @Test
     @Transactional
     public void testRequestIdSetterGetter() {
@@ -148,9 +185,9 @@ public class RequestTest {
     public void testRequestPersistence() {
         Request request = new Request();
         request.setName("Persistence Test");
-        request.convertX = Calendar.getInstance();
-        request.execute = Calendar.getInstance();
-        request.generateResponse = Calendar.getInstance();
+        request.setConvertXInstant(Instant.now());
+        request.setExecuteInstant(Instant.now());
+        request.setGenerateResponseInstant(Instant.now());
 
         em.persist(request);
         em.flush();
@@ -158,9 +195,9 @@ public class RequestTest {
         Request found = em.find(Request.class, request.getId());
         assertNotNull(found);
         assertEquals("Persistence Test", found.getName());
-        assertNotNull(found.convertX);
-        assertNotNull(found.execute);
-        assertNotNull(found.generateResponse);
+        assertNotNull(found.getConvertXInstant());
+        assertNotNull(found.getExecuteInstant());
+        assertNotNull(found.getGenerateResponseInstant());
     }
 
     @Test
@@ -0,0 +1,66 @@
+package JPA2.tests;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reads H2 EXPLAIN output to check that the common lookups use the declared indexes
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+@Transactional
+public class SchemaIndexTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void testEmployeeByName() {
+        assertUses("IDX_EMPLOYEE_NAME_ID", "select id, name from Employee where name = 'Ivan' order by id");
+    }
+
+    @Test
+    public void testEmployeeByDepartment() {
+        assertUses("IDX_EMPLOYEE_DEPARTMENT_ID", "select id from Employee where department_id = 1 and id > 10 order by id");
+    }
+
+    @Test
+    public void testEmployeeByStartDate() {
+        assertUses("IDX_EMPLOYEE_S_DATE_ID",
+                "select id from Employee where S_DATE between date '2020-01-01' and date '2020-12-31'");
+    }
+
+    @Test
+    public void testPhonesByEmployee() {
+        assertUses("IDX_EMP_PHONE_EMPLOYEE",
+                "select PHONE_TYPE, PHONE_NUM from EMP_PHONE where Employee_id = 1");
+    }
+
+    @Test
+    public void testEmployeesByProject() {
+        assertUses("IDX_EMPLOYEE_PROJECT_PROJECT", "select employees_id from Employee_Project where projects_id = 1");
+    }
+
+    @Test
+    public void testRequestsByTimestamps() {
+        assertUses("IDX_REQUESTS_CONVERTX",
+                "select id from requests where convertX >= timestamp '2024-01-01 00:00:00'");
+        assertUses("IDX_REQUESTS_EXECUTE",
+                "select id from requests where execute >= timestamp '2024-01-01 00:00:00'");
+        assertUses("IDX_REQUESTS_GENERATE_RESPONSE",
+                "select id from requests where generateResponse < timestamp '2024-01-01 00:00:00'");
+    }
+
+    private void assertUses(String index, String sql) {
+        String plan = String.valueOf(em.createNativeQuery("explain " + sql).getSingleResult());
+        assertTrue(plan, plan.contains(index));
+    }
+}
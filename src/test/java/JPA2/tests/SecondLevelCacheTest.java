@@ -0,0 +1,122 @@
+package JPA2.tests;
+
+import JPA2.models.Department;
+import JPA2.models.ParkingSpace;
+import JPA2.models.Project;
+import JPA2.services.CacheStatisticsService;
+import JPA2.services.ReferenceDataService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the second-level and query cache of the reference entities
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class SecondLevelCacheTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CacheStatisticsService cacheStatistics;
+
+    @Autowired
+    ReferenceDataService referenceData;
+
+    TransactionTemplate tx;
+
+    @Before
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    public void testReferenceEntitiesAreCacheable() {
+        assertTrue(emf.getCache() != null);
+        tx.executeWithoutResult(status -> {
+            Department dept = new Department();
+            dept.setId(6000);
+            dept.setName("Cached Department");
+            em.persist(dept);
+            Project project = new Project();
+            project.setId(6001);
+            project.setName("Cached Project");
+            em.persist(project);
+            ParkingSpace parking = new ParkingSpace();
+            parking.setId(6002);
+            parking.setLot(7);
+            em.persist(parking);
+        });
+        assertTrue(emf.getCache().contains(Department.class, 6000));
+        assertTrue(emf.getCache().contains(Project.class, 6001));
+        assertTrue(emf.getCache().contains(ParkingSpace.class, 6002));
+
+        long hits = cacheStatistics.getRegionStatistics("department").hits();
+        tx.executeWithoutResult(status -> assertEquals("Cached Department", em.find(Department.class, 6000).getName()));
+        assertEquals(hits + 1, cacheStatistics.getRegionStatistics("department").hits());
+    }
+
+    @Test
+    public void testMissIsCounted() {
+        tx.executeWithoutResult(status -> {
+            Project project = new Project();
+            project.setId(6010);
+            project.setName("Evicted Project");
+            em.persist(project);
+        });
+        emf.getCache().evict(Project.class, 6010);
+        long misses = cacheStatistics.getRegionStatistics("project").misses();
+        tx.executeWithoutResult(status -> assertNotNull(em.find(Project.class, 6010)));
+        assertEquals(misses + 1, cacheStatistics.getRegionStatistics("project").misses());
+        assertTrue(emf.getCache().contains(Project.class, 6010));
+    }
+
+    @Test
+    public void testLookupByNameUsesQueryCache() {
+        tx.executeWithoutResult(status -> {
+            Department dept = new Department();
+            dept.setId(6020);
+            dept.setName("Lookup Department");
+            em.persist(dept);
+        });
+        assertEquals(6020, tx.execute(status -> referenceData.findDepartmentByName("Lookup Department")).getId());
+        long queryHits = cacheStatistics.getStatistics().getQueryCacheHitCount();
+        assertEquals(6020, tx.execute(status -> referenceData.findDepartmentByName("Lookup Department")).getId());
+        assertEquals(queryHits + 1, cacheStatistics.getStatistics().getQueryCacheHitCount());
+        assertNull(referenceData.findProjectByName("No Such Project"));
+
+        CacheStatisticsService.RegionStatistics queryRegion = cacheStatistics.getRegionStatistics()
+                .get("default-query-results-region");
+        assertNotNull(queryRegion);
+        assertTrue(queryRegion.hits() >= 1);
+        assertTrue(queryRegion.hitRatio() > 0);
+    }
+
+    @Test
+    public void testEmployeeCollectionsAreNotCached() {
+        // в кеше коллекции были бы только id, а каждый сотрудник читался бы отдельным запросом
+        assertTrue(cacheStatistics.getRegionStatistics().containsKey("parkingSpace"));
+        assertFalse(cacheStatistics.getRegionStatistics().containsKey("department.employees"));
+        assertFalse(cacheStatistics.getRegionStatistics().containsKey("project.employees"));
+    }
+}
@@ -0,0 +1,198 @@
+package JPA2.tests;
+
+import JPA2.config.ShardedPersistence;
+import JPA2.models.Department;
+import JPA2.models.Employee;
+import JPA2.models.Project;
+import JPA2.projections.PayrollLine;
+import JPA2.services.ShardedEmployeeService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for routing employees to department shards and scatter-gather queries across shards
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/sharding-context.xml"})
+public class ShardedEmployeeServiceTest {
+
+    @Autowired
+    ShardedPersistence shards;
+
+    @Autowired
+    ShardedEmployeeService service;
+
+    @Before
+    public void clean() {
+        shards.forEachShard(em -> {
+            for (String table : List.of("EMP_PHONE", "Employee_Project", "Employee", "Department", "Project"))
+                em.createNativeQuery("delete from " + table).executeUpdate();
+        });
+    }
+
+    private Department department(int id) {
+        Department department = new Department();
+        department.setId(id);
+        department.setName("Department " + id);
+        service.saveDepartment(department);
+        return department;
+    }
+
+    private Employee employee(Department department, String name, long salary) {
+        Employee employee = new Employee();
+        employee.setName(name);
+        employee.setSalary(salary);
+        employee.setDepartment(department);
+        return service.save(employee);
+    }
+
+    private long countInShard(int departmentId) {
+        return shards.readShard(departmentId, em -> em.createQuery("select count(e) from Employee e", Long.class)
+                .getSingleResult());
+    }
+
+    @Test
+    public void testEmployeesStoredInDepartmentShard() {
+        assertEquals(3, shards.getShardCount());
+        for (int id = 1; id <= 6; id++) {
+            Department department = department(id);
+            employee(department, "Employee " + id, 1000);
+        }
+        for (int shard = 0; shard < 3; shard++)
+            assertEquals(2, countInShard(shard));
+
+        assertSame(shards.entityManager(1), shards.entityManager(7));
+        Employee employee = employee(department(7), "Seventh", 1);
+        assertEquals(3, countInShard(1));
+        Employee found = service.find(7, employee.getId());
+        assertEquals("Seventh", found.getName());
+        assertNull(service.find(8, employee.getId()));
+    }
+
+    @Test
+    public void testOwnedCollectionsStayInShard() {
+        Project project = new Project();
+        project.setId(10);
+        project.setName("Shared project");
+        service.saveProject(project);
+
+        Employee employee = new Employee();
+        employee.setName("With phones");
+        employee.setDepartment(department(5));
+        employee.setPhoneNumbers(Map.of("Work", "555-0005"));
+        employee.setProjects(new HashSet<>(Set.of(project)));
+        service.save(employee);
+
+        assertEquals(1L, (long) shards.readShard(5, em -> em.createNativeQuery("select count(*) from EMP_PHONE")
+                .getSingleResult()));
+        assertEquals(1L, (long) shards.readShard(5, em -> em.createNativeQuery("select count(*) from Employee_Project")
+                .getSingleResult()));
+        for (int other : new int[]{3, 4})
+            assertEquals(0L, (long) shards.readShard(other, em -> em.createNativeQuery("select count(*) from EMP_PHONE")
+                    .getSingleResult()));
+        Employee found = shards.readShard(5, em -> {
+            Employee e = em.find(Employee.class, employee.getId());
+            e.getPhoneNumbers().size();
+            e.getProjects().size();
+            return e;
+        });
+        assertEquals("555-0005", found.getPhoneNumbers().get("Work"));
+        assertEquals("Shared project", found.getProjects().iterator().next().getName());
+    }
+
+    @Test
+    public void testIdsDoNotOverlapAcrossShards() {
+        Set<Integer> ids = new HashSet<>();
+        for (int id = 1; id <= 3; id++) {
+            Department department = department(id);
+            for (int i = 0; i < 5; i++)
+                assertTrue(ids.add(employee(department, "Employee " + id + "/" + i, 100).getId()));
+        }
+        assertEquals(15, ids.size());
+    }
+
+    @Test
+    public void testGlobalPayrollMergesShardsInIdOrder() {
+        long expectedTotal = 0;
+        for (int id = 1; id <= 6; id++) {
+            Department department = department(id);
+            for (int i = 0; i < 4; i++) {
+                employee(department, "Employee " + id + "/" + i, id * 100 + i);
+                expectedTotal += id * 100 + i;
+            }
+        }
+        List<PayrollLine> payroll = service.payroll();
+        assertEquals(24, payroll.size());
+        for (int i = 1; i < payroll.size(); i++)
+            assertTrue(payroll.get(i - 1).id() < payroll.get(i).id());
+        assertEquals(expectedTotal, payroll.stream().mapToLong(PayrollLine::salary).sum());
+        assertEquals(expectedTotal, service.totalSalary());
+
+        List<PayrollLine> byDepartment = service.payrollByDepartment(4);
+        assertEquals(4, byDepartment.size());
+        assertTrue(byDepartment.stream().allMatch(line -> line.departmentName().equals("Department 4")));
+    }
+
+    @Test
+    public void testScatterRunsShardsInParallelAndPropagatesFailures() {
+        List<String> threads = shards.scatter(em -> Thread.currentThread().getName());
+        assertEquals(3, threads.size());
+        assertFalse(threads.contains(Thread.currentThread().getName()));
+
+        try {
+            shards.scatter(em -> em.createQuery("select x from Missing x").getResultList());
+            fail("Expected the shard query failure");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testDepartmentChangeWithinShard() {
+        Employee employee = employee(department(1), "Mover", 100);
+        department(4);
+        service.changeDepartment(1, employee.getId(), 4);
+        assertEquals(4, service.find(4, employee.getId()).getDepartment().getId());
+        assertEquals(1, service.payrollByDepartment(4).size());
+        assertTrue(service.payrollByDepartment(1).isEmpty());
+    }
+
+    @Test
+    public void testDepartmentChangeAcrossShardsRejected() {
+        Employee employee = employee(department(1), "Stayer", 100);
+        department(2);
+        try {
+            service.changeDepartment(1, employee.getId(), 2);
+            fail("Expected the cross-shard move to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(1, service.find(1, employee.getId()).getDepartment().getId());
+        assertEquals(0, countInShard(2));
+    }
+
+    @Test
+    public void testShardWritesLeaveOutboxEmpty() {
+        // OutboxRelay разбирает только основную базу, строки в outbox шарда копились бы без конца
+        Employee employee = employee(department(1), "Unpublished", 100);
+        department(4);
+        for (int id = 2; id <= 3; id++)
+            employee(department(id), "Unpublished " + id, 100);
+        service.changeDepartment(1, employee.getId(), 4);
+        assertEquals(List.of(0L, 0L, 0L), shards.scatter(em -> em.createQuery(
+                "select count(o) from OutboxEvent o", Long.class).getSingleResult()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmployeeWithoutDepartmentRejected() {
+        Employee employee = new Employee();
+        employee.setName("Nowhere");
+        service.save(employee);
+    }
+}
@@ -0,0 +1,38 @@
+package JPA2.tests;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+
+import java.util.Map;
+
+/**
+ * Builds a session factory outside Spring, on its own in-memory H2 database, for tests that need
+ * Hibernate settings or entities the shared context does not have
+ */
+final class StandaloneSessionFactory {
+
+    private StandaloneSessionFactory() {
+    }
+
+    /**
+     * Closing the returned factory also destroys its service registry
+     */
+    static SessionFactory build(String database, Map<String, Object> settings, Class<?>... entities) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.url", "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1")
+                .applySetting("hibernate.hbm2ddl.auto", "create-drop")
+                .applySettings(settings)
+                .build();
+        try {
+            MetadataSources sources = new MetadataSources(registry);
+            for (Class<?> entity : entities)
+                sources.addAnnotatedClass(entity);
+            return sources.buildMetadata().buildSessionFactory();
+        } catch (RuntimeException e) {
+            StandardServiceRegistryBuilder.destroy(registry);
+            throw e;
+        }
+    }
+}
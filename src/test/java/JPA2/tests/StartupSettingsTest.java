@@ -0,0 +1,35 @@
+package JPA2.tests;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the settings that keep startup free of unused mapping sources
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:/test-context.xml"})
+public class StartupSettingsTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void testXmlMappingDisabled() {
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        assertEquals("false", String.valueOf(sessionFactory.getProperties().get("hibernate.xml_mapping_enabled")));
+    }
+
+    @Test
+    public void testNoComponentIndexOnClasspath() {
+        // устаревший индекс из прежней сборки заменил бы component-scan и скрыл новые компоненты
+        assertNull(getClass().getClassLoader().getResource("META-INF/spring.components"));
+    }
+}
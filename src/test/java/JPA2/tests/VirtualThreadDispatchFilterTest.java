@@ -0,0 +1,172 @@
+package JPA2.tests;
+
+import JPA2.config.TaskExecutorConfiguration;
+import JPA2.config.VirtualThreadDispatchFilter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.PrintWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for running requests off the container thread
+ */
+public class VirtualThreadDispatchFilterTest {
+
+    private AsyncTaskExecutor executor;
+    private VirtualThreadDispatchFilter filter;
+
+    @Before
+    public void setUp() {
+        // на JDK младше 21 вместо виртуальных потоков — пул платформенных
+        executor = TaskExecutorConfiguration.createExecutor(true, 2);
+        if (executor instanceof ThreadPoolTaskExecutor pool)
+            pool.initialize();
+        filter = new VirtualThreadDispatchFilter();
+        filter.setExecutor(executor);
+        filter.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool)
+            pool.shutdown();
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/employees");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private static void awaitCompletion(MockHttpServletRequest request) throws InterruptedException {
+        for (int i = 0; i < 500 && request.isAsyncStarted(); i++)
+            Thread.sleep(10);
+        assertFalse("request was not completed", request.isAsyncStarted());
+    }
+
+    @Test
+    public void testChainRunsOnExecutor() throws Exception {
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<Thread> handler = new AtomicReference<>();
+        FilterChain chain = (req, res) -> {
+            handler.set(Thread.currentThread());
+            assertFalse(req.isAsyncStarted());
+            res.getWriter().write("ok");
+        };
+        filter.doFilter(request, response, chain);
+        awaitCompletion(request);
+        assertNotSame(Thread.currentThread(), handler.get());
+        assertEquals("ok", response.getContentAsString());
+    }
+
+    @Test
+    public void testHandlerStartingAsyncCompletesItself() throws Exception {
+        MockHttpServletRequest request = request();
+        AtomicReference<Boolean> started = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            assertSame(request.getAsyncContext(), req.startAsync());
+            started.set(req.isAsyncStarted());
+        });
+        Thread.sleep(100);
+        assertEquals(Boolean.TRUE, started.get());
+        // запрос завершит асинхронный обработчик, а не фильтр
+        assertTrue(request.isAsyncStarted());
+        request.getAsyncContext().complete();
+    }
+
+    @Test
+    public void testFailureBecomesServerError() throws Exception {
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            throw new IllegalStateException("Ошибка обработчика");
+        });
+        awaitCompletion(request);
+        assertEquals(500, response.getStatus());
+    }
+
+    @Test
+    public void testTimeoutAnswersServiceUnavailable() throws Exception {
+        filter.setTimeoutMillis(250);
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        filter.doFilter(request, response, (req, res) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                finished.countDown();
+            }
+        });
+        MockAsyncContext async = (MockAsyncContext) request.getAsyncContext();
+        assertEquals(250, async.getTimeout());
+        // MockAsyncContext не считает время сам: таймаут контейнера вызывается вручную
+        for (AsyncListener listener : async.getListeners())
+            listener.onTimeout(new AsyncEvent(async, request, response));
+        assertEquals(503, response.getStatus());
+        assertFalse(request.isAsyncStarted());
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWritesAfterTimeoutDoNotReachClient() throws Exception {
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CountDownLatch writerTaken = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        filter.doFilter(request, response, (req, res) -> {
+            try {
+                // writer взят до таймаута: отбрасываться должна сама запись, а не только новый writer
+                PrintWriter writer = res.getWriter();
+                writerTaken.countDown();
+                release.await();
+                writer.write("late");
+                writer.flush();
+                ((HttpServletResponse) res).sendError(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                finished.countDown();
+            }
+        });
+        assertTrue(writerTaken.await(5, TimeUnit.SECONDS));
+        MockAsyncContext async = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : async.getListeners())
+            listener.onTimeout(new AsyncEvent(async, request, response));
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(503, response.getStatus());
+        assertEquals("", response.getContentAsString());
+    }
+
+    @Test
+    public void testDisabledRunsInline() throws Exception {
+        filter.setEnabled(false);
+        AtomicReference<Thread> handler = new AtomicReference<>();
+        MockHttpServletRequest request = request();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> handler.set(Thread.currentThread()));
+        assertSame(Thread.currentThread(), handler.get());
+        assertFalse(request.isAsyncStarted());
+    }
+}